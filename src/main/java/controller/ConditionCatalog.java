@@ -0,0 +1,36 @@
+package controller;
+
+import customtablecell.MultiValueStringConverter;
+import customtablecell.SelectionRules;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The conditions a PO can have, and how they're stored. Shared by the table and by batch
+ * jobs, so that both read, check and write conditions the same way.
+ */
+public final class ConditionCatalog {
+
+    /**
+     * The conditions, in the order they're offered and written.
+     */
+    public static final List<String> OPTIONS = Collections.unmodifiableList(Arrays.asList("Open", "Cut", "Ok"));
+
+    /**
+     * Some combinations of conditions don't make sense.
+     */
+    public static final SelectionRules<String> RULES = SelectionRules.forOptions(OPTIONS)
+            .excludes("Ok", "Cut")
+            .requires("Cut", "Open")
+            .compile();
+
+    /**
+     * How the checked conditions of a PO are stored in its condition.
+     */
+    public static final MultiValueStringConverter CONVERTER = new MultiValueStringConverter();
+
+    private ConditionCatalog() {
+    }
+}
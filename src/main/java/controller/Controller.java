@@ -1,17 +1,40 @@
 package controller;
 
 import customtablecell.CheckComboBoxTableCell;
+import customtablecell.ColumnAutoSizer;
+import customtablecell.ConditionGroups;
+import customtablecell.DerivedColumn;
+import customtablecell.InlineToggleEditing;
+import customtablecell.MultiValueStringConverter;
+import customtablecell.SelectionRules;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
+import javafx.scene.control.ToggleButton;
+import javafx.scene.control.TreeTableView;
+import javafx.scene.layout.BorderPane;
+import model.KeyedObservableList;
 import model.TableEntry;
+import replication.ReplicationClient;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public class Controller {
 
+    @FXML
+    BorderPane root;
+
+    @FXML
+    ToggleButton groupToggle;
+
     @FXML
     TableView<TableEntry> tableView;
 
@@ -21,17 +44,152 @@ public class Controller {
     @FXML
     TableColumn<TableEntry, String> conditionColumn;
 
+    @FXML
+    TableColumn<TableEntry, Integer> severityColumn;
+
+    /**
+     * How bad each condition is, by its index in the catalog.
+     */
+    private static final int[] SEVERITY_WEIGHTS = severityWeights();
+
+    ObservableList<String> options;
+
+    SelectionRules<String> rules;
+
+    DerivedColumn<TableEntry, String, Integer> severity;
+
+    InlineToggleEditing<TableEntry> inlineEditing;
+
+    ReplicationClient<TableEntry, String> replication;
+
+    /**
+     * Set once the window is closed, so a connection that is only made after that is closed too.
+     */
+    boolean closed;
+
+    /**
+     * Only created once the user first groups the rows; kept up to date from then on.
+     */
+    TreeTableView<Object> groupedView;
+
+    /**
+     * The rows of the table, matched up by PO number whenever they're refreshed.
+     */
+    final KeyedObservableList<Integer, TableEntry> rows =
+            new KeyedObservableList<>(TableEntry::getPoNumber, TableEntry::updateFrom);
+
     @FXML
     public void initialize() {
         System.out.println("Initializing...");
 
-        tableView.getItems().setAll(createTableEntries());
+        tableView.setItems(rows);
+        refresh(Arrays.asList(createTableEntries()));
 
         setupCellValueFactories();
         setupCellFactories();
 
     }
 
+    /**
+     * Brings the table up to date with the given entries, touching only the rows that changed.
+     */
+    public void refresh(List<TableEntry> entries) {
+        rows.reconcile(entries);
+    }
+
+    public TableView<TableEntry> getTableView() {
+        return tableView;
+    }
+
+    public TableColumn<TableEntry, String> getConditionColumn() {
+        return conditionColumn;
+    }
+
+    /**
+     * Toggles conditions from the keyboard.
+     */
+    public InlineToggleEditing<TableEntry> getInlineEditing() {
+        return inlineEditing;
+    }
+
+    /**
+     * The options offered in the condition column. Changes show up in the editors.
+     */
+    public ObservableList<String> getOptions() {
+        return options;
+    }
+
+    /**
+     * The rules the checked conditions have to obey.
+     */
+    public SelectionRules<String> getRules() {
+        return rules;
+    }
+
+    /**
+     * Switches between the table and the rows grouped by their conditions.
+     */
+    @FXML
+    void toggleGrouping() {
+        if (groupToggle.isSelected()) {
+            if (groupedView == null) {
+                ConditionGroups<TableEntry> groups = new ConditionGroups<>(rows, TableEntry::conditionProperty,
+                        rules, ConditionCatalog.CONVERTER, entry -> Integer.toString(entry.getPoNumber()));
+                groupedView = groups.createTreeTableView();
+            }
+            root.setCenter(groupedView);
+        } else {
+            root.setCenter(tableView);
+        }
+    }
+
+    /**
+     * Shares condition edits with the other clients of the hub at the given address. Connects
+     * in the background; if the hub can't be reached, says so and carries on without it.
+     */
+    public void replicate(String host, int port) {
+        Thread connector = new Thread(() -> {
+            try {
+                ReplicationClient<TableEntry, String> client = new ReplicationClient<>(host, port, rules,
+                        ConditionCatalog.CONVERTER, TableEntry::getPoNumber, rows::getByKey, TableEntry::setCondition);
+                Platform.runLater(() -> connected(client));
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("Can't reach the replication hub at " + host + ":" + port + " (" + e.getMessage()
+                        + "); carrying on without replication.");
+            }
+        }, "replication-connector");
+        connector.setDaemon(true);
+        connector.start();
+    }
+
+    /**
+     * Stops sharing edits. Called when the window closes.
+     */
+    public void close() {
+        closed = true;
+        if (replication != null) {
+            closeQuietly(replication);
+            replication = null;
+        }
+    }
+
+    private void connected(ReplicationClient<TableEntry, String> client) {
+        if (closed) {
+            closeQuietly(client);
+            return;
+        }
+        replication = client;
+        replication.attach(conditionColumn);
+    }
+
+    private static void closeQuietly(ReplicationClient<?, ?> client) {
+        try {
+            client.close();
+        } catch (IOException e) {
+            //Nothing left to do with it
+        }
+    }
+
     private void setupCellValueFactories() {
 
         poNumberColumn.setCellValueFactory(
@@ -45,10 +203,21 @@ public class Controller {
 
     private void setupCellFactories() {
         //Prepare the checkable options that will be given to the user
-        ObservableList<String> options = FXCollections.observableArrayList("Open", "Cut", "Ok");
+        options = FXCollections.observableArrayList(ConditionCatalog.OPTIONS);
+        rules = ConditionCatalog.RULES;
+
+        MultiValueStringConverter converter = ConditionCatalog.CONVERTER;
+        conditionColumn.setCellFactory(CheckComboBoxTableCell.forTableColumn(converter, options, rules));
+
+        //Double-clicking the header divider fits the column to the conditions, remembering what it measured
+        ColumnAutoSizer.install(conditionColumn, converter);
 
+        //With a condition cell focused, 1-9 or a condition's letter toggles it without the popup and moves down
+        inlineEditing = InlineToggleEditing.install(conditionColumn, rules, converter);
 
-        conditionColumn.setCellFactory(CheckComboBoxTableCell.forTableColumn(options));
+        //The severity of a PO follows from its conditions; it's kept up to date as they're edited
+        severity = new DerivedColumn<>(tableView, TableEntry::conditionProperty, Controller::score);
+        severityColumn.setCellValueFactory(severity.cellValueFactory());
 
 
 
@@ -66,6 +235,32 @@ public class Controller {
 
     }
 
+    /**
+     * Adds up how bad each checked condition is.
+     */
+    private static int score(String condition) {
+        int score = 0;
+        for (long rest = ConditionCatalog.RULES.maskOf(condition, ConditionCatalog.CONVERTER); rest != 0; rest &= rest - 1) {
+            score += SEVERITY_WEIGHTS[Long.numberOfTrailingZeros(rest)];
+        }
+        return score;
+    }
+
+    /**
+     * Looks up the weight of each condition, in the order of {@link ConditionCatalog#OPTIONS}.
+     */
+    private static int[] severityWeights() {
+        Map<String, Integer> weights = new HashMap<>();
+        weights.put("Open", 1);
+        weights.put("Cut", 3);
+        weights.put("Ok", 0);
+        int[] table = new int[ConditionCatalog.OPTIONS.size()];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = weights.getOrDefault(ConditionCatalog.OPTIONS.get(i), 0);
+        }
+        return table;
+    }
+
     /**
      * Just preparing some rows to go in the table.
      */
@@ -24,8 +24,14 @@
  */
 package customtablecell;
 
+import javafx.application.Platform;
+import javafx.beans.binding.Bindings;
 import javafx.beans.property.ObjectProperty;
+import javafx.beans.value.ObservableValue;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
+import javafx.collections.WeakListChangeListener;
 import javafx.scene.Node;
 import javafx.scene.control.Cell;
 import javafx.scene.control.ComboBox;
@@ -35,12 +41,33 @@ import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.HBox;
 import javafx.util.StringConverter;
 import org.controlsfx.control.CheckComboBox;
+import org.controlsfx.control.IndexedCheckModel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 // Package protected - not intended for external use
 class CellUtils {
 
     static int TREE_VIEW_HBOX_GRAPHIC_PADDING = 3;
 
+    /*
+     * Key in a CheckComboBox's properties that is set while we change its checks
+     * ourselves, so that the rules aren't applied to our own changes.
+     */
+    private static final String ADJUSTING_CHECKS_KEY = "customtablecell.adjustingChecks";
+
+    /*
+     * Key in a CheckComboBox's properties that holds the listener keeping its items in
+     * sync with the column's, so the listener lives exactly as long as the CheckComboBox.
+     */
+    private static final String ITEMS_SYNC_KEY = "customtablecell.itemsSync";
+
     /***************************************************************************
      *                                                                         *
      * Private fields                                                          *
@@ -288,7 +315,7 @@ class CellUtils {
             cell.setGraphic(null);
         } else {
             if (cell.isEditing()) {
-                transferChecksToNewComboBox(checkComboBox, cell.getItem());
+                transferChecksToNewComboBox(checkComboBox, cell.getItem(), converter);
                 cell.setText(null);
 
                 if (graphic != null) {
@@ -300,7 +327,7 @@ class CellUtils {
             } else {
                 cell.setText(getItemText(cell, converter));
                 cell.setGraphic(graphic);
-                transferChecksToNewComboBox(checkComboBox, cell.getItem());
+                transferChecksToNewComboBox(checkComboBox, cell.getItem(), converter);
             }
         }
     }
@@ -310,26 +337,72 @@ class CellUtils {
      * from one reused CheckComboBox to the other.
      * @param checkComboBox the checkComboBox that you want to add selections to
      * @param item the (hopefully comma-separated string) list that you're getting selections from
+     * @param converter the converter of the cell, which may know how to split the item
      */
-    private static <T> void transferChecksToNewComboBox(CheckComboBox<T> checkComboBox, T item) {
+    private static <T> void transferChecksToNewComboBox(CheckComboBox<T> checkComboBox, T item,
+                                                        StringConverter<T> converter) {
         if (checkComboBox != null) {
-            if (item != null) {
-                //Get items from string representation
-                String[] separateItems = convertCommaListToSeparateItems(item);
-                //First clear all checks that could be left behind from last item
-                checkComboBox.getCheckModel().clearChecks();
-                //Check each thing contained in "item"
-                for (String s : separateItems) {
-                    checkComboBox.getCheckModel().check((T) s);
-                }
-            } else {
-                checkComboBox.getCheckModel().clearChecks();
+            checkComboBox.getProperties().put(ADJUSTING_CHECKS_KEY, Boolean.TRUE);
+            try {
+                transferChecks(checkComboBox, item, converter);
+            } finally {
+                checkComboBox.getProperties().remove(ADJUSTING_CHECKS_KEY);
+            }
+        }
+    }
+
+    private static <T> void transferChecks(CheckComboBox<T> checkComboBox, T item, StringConverter<T> converter) {
+        if (item != null) {
+            //Get items from string representation
+            List<String> separateItems = splitItems(item, converter);
+            //First clear all checks that could be left behind from last item
+            checkComboBox.getCheckModel().clearChecks();
+            //Check each thing contained in "item"
+            for (String s : separateItems) {
+                checkComboBox.getCheckModel().check((T) s);
             }
+        } else {
+            checkComboBox.getCheckModel().clearChecks();
+        }
+    }
+
+
+    /**
+     * Splits a cell value into the items it lists, with the cell's converter if it is a
+     * {@link MultiValueStringConverter}, and as a plain comma-separated list otherwise.
+     */
+    static <T> List<String> splitItems(T item, StringConverter<T> converter) {
+        if (converter instanceof MultiValueStringConverter) {
+            return ((MultiValueStringConverter) converter).decode((String) item);
         }
+        return Arrays.asList(convertCommaListToSeparateItems(item));
     }
 
+    /**
+     * Joins checked items into a cell value, with the cell's converter if it is a
+     * {@link MultiValueStringConverter}, and as a plain comma-separated list otherwise.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T joinItems(List<T> checkedItems, StringConverter<T> converter) {
+        if (converter instanceof MultiValueStringConverter) {
+            return (T) ((MultiValueStringConverter) converter).encode((List<String>) checkedItems);
+        }
+        return convertToCommaList(checkedItems, converter != null ? converter : CellUtils.<T>defaultStringConverter());
+    }
+
+    /**
+     * The converter for the options in the CheckComboBox: a {@link MultiValueStringConverter}
+     * converts whole cell values, so its item converter is used for the single options.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> StringConverter<T> itemConverter(StringConverter<T> converter) {
+        if (converter instanceof MultiValueStringConverter) {
+            return (StringConverter<T>) ((MultiValueStringConverter) converter).getItemConverter();
+        }
+        return converter;
+    }
 
-    private static <T> String[] convertCommaListToSeparateItems(T item) {
+    static <T> String[] convertCommaListToSeparateItems(T item) {
         //Prepare the list
         String[] list;
         if (item instanceof String) {
@@ -346,20 +419,56 @@ class CellUtils {
     static <T> CheckComboBox<T> createCheckComboBox(final Cell<T> cell,
                                                     final ObservableList<T> items,
                                                     final ObjectProperty<StringConverter<T>> converter) {
-        CheckComboBox<T> checkComboBox = new CheckComboBox<T>(items);
-        checkComboBox.converterProperty().bind(converter);
-        checkComboBox.setMaxWidth(Double.MAX_VALUE);
+        return createCheckComboBox(cell, items, converter, null);
+    }
 
-        //Cancel or Commit, depending on which key is pressed
-        // FIXME: 11/17/2017 I think CheckComboBox is doing something that's causing the cancel key to come back as UNDEFINED.
-        checkComboBox.addEventHandler(KeyEvent.KEY_TYPED, keyEventEventHandler -> {
-            System.out.println(keyEventEventHandler.toString());
+    static <T> CheckComboBox<T> createCheckComboBox(final Cell<T> cell,
+                                                    final ObservableList<T> items,
+                                                    final ObjectProperty<StringConverter<T>> converter,
+                                                    final ObservableValue<SelectionRules<T>> rules) {
+        //The CheckComboBox (and its check model) listen to their items without weak listeners, so
+        //handing them the column's list would keep every editor, and its cell, alive for as long
+        //as the list is. Give each one its own copy, kept in sync weakly, instead.
+        ObservableList<T> ownItems = FXCollections.observableArrayList(items);
+        CheckComboBox<T> checkComboBox = new CheckComboBox<T>(ownItems);
+        ListChangeListener<T> itemsSync = change -> syncItems(checkComboBox, change);
+        items.addListener(new WeakListChangeListener<>(itemsSync));
+        checkComboBox.getProperties().put(ITEMS_SYNC_KEY, itemsSync);
+        checkComboBox.converterProperty().bind(
+                Bindings.createObjectBinding(() -> itemConverter(converter.get()), converter));
+        checkComboBox.setMaxWidth(Double.MAX_VALUE);
 
-            KeyCode code = keyEventEventHandler.getCode();
+        //Keep the checks obeying the rules while the user toggles them. The checked items are still
+        //notifying their listeners (the skin among them) when this one runs, so changing them right
+        //here would hand the listeners after us a change that no longer matches the list: only note
+        //what was toggled, and correct the checks once the notification is over.
+        if (rules != null) {
+            checkComboBox.getCheckModel().getCheckedItems().addListener((ListChangeListener<T>) change -> {
+                if (rules.getValue() == null || checkComboBox.getProperties().containsKey(ADJUSTING_CHECKS_KEY)) {
+                    return;
+                }
+                List<T> unchecked = new ArrayList<>();
+                List<T> checked = new ArrayList<>();
+                while (change.next()) {
+                    unchecked.addAll(change.getRemoved());
+                    checked.addAll(change.getAddedSubList());
+                }
+                Platform.runLater(() -> {
+                    if (rules.getValue() != null) {
+                        applyRules(checkComboBox, rules.getValue(), unchecked, checked);
+                    }
+                });
+            });
+        }
 
-            if (code.equals(KeyCode.UNDEFINED) || code.equals(KeyCode.ESCAPE)) {
-                // TODO: 11/17/2017 When it's canceled we need to restore its previous state by getting the saved value in the property.
+        //Cancel when Escape is pressed. This has to be KEY_PRESSED: KEY_TYPED events never have a
+        //key code (it's always UNDEFINED), which made every typed key cancel the edit.
+        checkComboBox.addEventHandler(KeyEvent.KEY_PRESSED, keyEvent -> {
+            if (keyEvent.getCode() == KeyCode.ESCAPE && cell.isEditing()) {
                 cell.cancelEdit();
+                //Put back the checks of the value that is still in the property
+                transferChecksToNewComboBox(checkComboBox, cell.getItem(), converter.get());
+                keyEvent.consume();
             }
         });
 
@@ -368,7 +477,15 @@ class CellUtils {
             if (cell.isEditing()) {
                 //Get all the checked items from the CheckComboBox
                 ObservableList<T> checkedItems = checkComboBox.getCheckModel().getCheckedItems();
-                T commaSeparatedList = convertToCommaList(checkedItems, checkComboBox.getConverter());
+                T commaSeparatedList;
+                if (rules != null && rules.getValue() != null) {
+                    //Never commit a selection that breaks the rules
+                    SelectionRules<T> selectionRules = rules.getValue();
+                    commaSeparatedList = selectionRules.valueOfCorrected(getCheckedMask(checkedItems, selectionRules),
+                            converter.get());
+                } else {
+                    commaSeparatedList = joinItems(checkedItems, converter.get());
+                }
                 cell.commitEdit(commaSeparatedList);
             }
 
@@ -385,9 +502,130 @@ class CellUtils {
     }
 
     /**
-     * Is this doing the job of a Converter? How could I do this same thing with a converter?
+     * Replays a change of the column's items on an editor's copy of them. The check model
+     * keeps its checks by index, so afterwards they are put back on the items they were on;
+     * the items that are still there keep their checks (a pending selection in an open popup
+     * included).
+     */
+    private static <T> void syncItems(CheckComboBox<T> checkComboBox, ListChangeListener.Change<? extends T> change) {
+        ObservableList<T> ownItems = checkComboBox.getItems();
+        IndexedCheckModel<T> checkModel = checkComboBox.getCheckModel();
+        List<T> checked = new ArrayList<>(checkModel.getCheckedItems());
+        while (change.next()) {
+            if (change.wasPermutated()) {
+                ownItems.remove(change.getFrom(), change.getTo());
+                ownItems.addAll(change.getFrom(), change.getList().subList(change.getFrom(), change.getTo()));
+            } else {
+                if (change.wasRemoved()) {
+                    ownItems.remove(change.getFrom(), change.getFrom() + change.getRemovedSize());
+                }
+                if (change.wasAdded()) {
+                    ownItems.addAll(change.getFrom(), change.getAddedSubList());
+                }
+            }
+        }
+
+        checkComboBox.getProperties().put(ADJUSTING_CHECKS_KEY, Boolean.TRUE);
+        try {
+            for (int i = 0; i < ownItems.size(); i++) {
+                boolean wasChecked = checked.contains(ownItems.get(i));
+                if (checkModel.isChecked(i) != wasChecked) {
+                    if (wasChecked) {
+                        checkModel.check(i);
+                    } else {
+                        checkModel.clearCheck(i);
+                    }
+                }
+            }
+        } finally {
+            checkComboBox.getProperties().remove(ADJUSTING_CHECKS_KEY);
+        }
+    }
+
+    /**
+     * Creates a listener for a list of rows that hands every row that left the list to
+     * {@code onRemoved}, and the rows that came into it to {@code onAdded}, all of a change at
+     * once. Rows that were only moved (by a sort, or a reconcile) are removed and added again
+     * in the same change; they are handed to {@code onAdded} only, so whatever was kept for
+     * them can stay.
+     */
+    static <S> ListChangeListener<S> rowsListener(Consumer<? super S> onRemoved, Consumer<? super List<S>> onAdded) {
+        return change -> {
+            List<S> removed = new ArrayList<>();
+            List<S> added = new ArrayList<>();
+            while (change.next()) {
+                removed.addAll(change.getRemoved());
+                added.addAll(change.getAddedSubList());
+            }
+            Set<S> stillThere = Collections.newSetFromMap(new IdentityHashMap<>());
+            stillThere.addAll(added);
+            for (S row : removed) {
+                if (!stillThere.contains(row)) {
+                    onRemoved.accept(row);
+                }
+            }
+            onAdded.accept(added);
+        };
+    }
+
+    /**
+     * Corrects the checks after the user toggled some of them, so that the rules still hold.
+     * Each toggle costs a constant number of mask operations; only the checks that actually
+     * need to change are touched. Toggles that were undone in the meantime are skipped.
+     */
+    private static <T> void applyRules(CheckComboBox<T> checkComboBox,
+                                       SelectionRules<T> rules,
+                                       List<? extends T> unchecked,
+                                       List<? extends T> checked) {
+        IndexedCheckModel<T> checkModel = checkComboBox.getCheckModel();
+        long current = getCheckedMask(checkModel.getCheckedItems(), rules);
+        long corrected = current;
+        for (T item : unchecked) {
+            int index = rules.indexOf(item);
+            if (index >= 0 && (current & (1L << index)) == 0) {
+                corrected = rules.uncheck(corrected, index);
+            }
+        }
+        for (T item : checked) {
+            int index = rules.indexOf(item);
+            if (index >= 0 && (current & (1L << index)) != 0) {
+                corrected = rules.check(corrected, index);
+            }
+        }
+        if (corrected == current) {
+            return;
+        }
+
+        checkComboBox.getProperties().put(ADJUSTING_CHECKS_KEY, Boolean.TRUE);
+        try {
+            List<T> options = rules.getOptions();
+            for (long rest = current & ~corrected; rest != 0; rest &= rest - 1) {
+                checkModel.clearCheck(options.get(Long.numberOfTrailingZeros(rest)));
+            }
+            for (long rest = corrected & ~current; rest != 0; rest &= rest - 1) {
+                checkModel.check(options.get(Long.numberOfTrailingZeros(rest)));
+            }
+        } finally {
+            checkComboBox.getProperties().remove(ADJUSTING_CHECKS_KEY);
+        }
+    }
+
+    private static <T> long getCheckedMask(List<T> checkedItems, SelectionRules<T> rules) {
+        long mask = 0L;
+        for (T item : checkedItems) {
+            int index = rules.indexOf(item);
+            if (index >= 0) {
+                mask |= 1L << index;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Is this doing the job of a Converter? Yes: pass a {@link MultiValueStringConverter} to the
+     * cell and it's used instead (see {@link #joinItems}). This is kept for the other converters.
      */
-    private static <T> T convertToCommaList(ObservableList<T> checkedItems, StringConverter<T> converter) {
+    static <T> T convertToCommaList(List<T> checkedItems, StringConverter<T> converter) {
         //Prepare StringBuilder
         StringBuilder sb = new StringBuilder();
 
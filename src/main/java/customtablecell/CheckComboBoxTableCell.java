@@ -163,6 +163,28 @@ public class CheckComboBoxTableCell<S, T> extends TableCell<S, T> {
         return list -> new CheckComboBoxTableCell<S, T>(converter, items);
     }
 
+    /**
+     * Creates a CheckComboBox cell factory for use in {@link TableColumn} controls,
+     * whose checks are kept obeying the given {@link SelectionRules} while the user
+     * toggles them, and are corrected before they are committed.
+     *
+     * @param <T>       The type of the elements contained within the TableColumn.
+     * @param converter A {@link StringConverter} to convert the given item (of
+     *                  type T) to a String for displaying to the user.
+     * @param items     Zero or more items that will be shown to the user when the
+     *                  {@link CheckComboBox} menu is showing. These should be the
+     *                  options the rules were compiled for.
+     * @param rules     The rules the checked items must obey.
+     * @return A {@link Callback} that will return a TableCell that is able to
+     * work on the type of element contained within the TableColumn.
+     */
+    public static <S, T> Callback<TableColumn<S, T>, TableCell<S, T>> forTableColumn(
+            final StringConverter<T> converter,
+            final ObservableList<T> items,
+            final SelectionRules<T> rules) {
+        return list -> new CheckComboBoxTableCell<S, T>(converter, items, rules);
+    }
+
 
     /***************************************************************************
      *                                                                         *
@@ -241,9 +263,28 @@ public class CheckComboBoxTableCell<S, T> extends TableCell<S, T> {
      *                  by the user.
      */
     public CheckComboBoxTableCell(StringConverter<T> converter, ObservableList<T> items) {
+        this(converter, items, null);
+    }
+
+    /**
+     * Creates a {@link CheckComboBoxTableCell} instance with the given items
+     * being used to populate the {@link CheckComboBox} when it is shown, the
+     * {@link StringConverter} being used to convert the item in to a
+     * user-readable form, and the given {@link SelectionRules} being enforced
+     * on the checked items.
+     *
+     * @param converter A {@link StringConverter} that can convert an item of type T
+     *                  into a user-readable string so that it may then be shown in the
+     *                  CheckComboBox popup menu.
+     * @param items     The items to show in the CheckComboBox popup menu when selected
+     *                  by the user.
+     * @param rules     The rules the checked items must obey, or null for none.
+     */
+    public CheckComboBoxTableCell(StringConverter<T> converter, ObservableList<T> items, SelectionRules<T> rules) {
         this.getStyleClass().add("combo-box-table-cell");
         this.items = items;
-        setConverter(converter != null ? converter : CellUtils.<T>defaultStringConverter());
+        this.defaultConverter = converter != null ? converter : CellUtils.<T>defaultStringConverter();
+        this.defaultSelectionRules = rules;
     }
 
 
@@ -253,14 +294,24 @@ public class CheckComboBoxTableCell<S, T> extends TableCell<S, T> {
      *                                                                         *
      **************************************************************************/
 
+    // The properties below are only created when they are asked for (or set to
+    // something other than their default), because a table creates a lot of
+    // cells and almost all of them keep the defaults of their column. Until then
+    // the getters answer with the default that the cell factory handed to every
+    // cell of the column.
+
     // --- converter
-    private ObjectProperty<StringConverter<T>> converter =
-            new SimpleObjectProperty<StringConverter<T>>(this, "converter");
+    private ObjectProperty<StringConverter<T>> converter;
+
+    private final StringConverter<T> defaultConverter;
 
     /**
      * The {@link StringConverter} property.
      */
     public final ObjectProperty<StringConverter<T>> converterProperty() {
+        if (converter == null) {
+            converter = new SimpleObjectProperty<StringConverter<T>>(this, "converter", defaultConverter);
+        }
         return converter;
     }
 
@@ -268,26 +319,30 @@ public class CheckComboBoxTableCell<S, T> extends TableCell<S, T> {
      * Sets the {@link StringConverter} to be used in this cell.
      */
     public final void setConverter(StringConverter<T> value) {
-        converterProperty().set(value);
+        if (converter != null || value != defaultConverter) {
+            converterProperty().set(value);
+        }
     }
 
     /**
      * Returns the {@link StringConverter} used in this cell.
      */
     public final StringConverter<T> getConverter() {
-        return converterProperty().get();
+        return converter == null ? defaultConverter : converter.get();
     }
 
 
     // --- checkComboBox editable
-    private BooleanProperty checkComboBoxEditable =
-            new SimpleBooleanProperty(this, "checkComboBoxEditable");
+    private BooleanProperty checkComboBoxEditable;
 
     /**
      * A property representing whether the CheckComboBox, when shown to the user,
      * is editable or not.
      */
     public final BooleanProperty checkComboBoxEditableProperty() {
+        if (checkComboBoxEditable == null) {
+            checkComboBoxEditable = new SimpleBooleanProperty(this, "checkComboBoxEditable");
+        }
         return checkComboBoxEditable;
     }
 
@@ -296,14 +351,49 @@ public class CheckComboBoxTableCell<S, T> extends TableCell<S, T> {
      * options provide in the dropdown list).
      */
     public final void setCheckComboBoxEditable(boolean value) {
-        checkComboBoxEditableProperty().set(value);
+        if (checkComboBoxEditable != null || value) {
+            checkComboBoxEditableProperty().set(value);
+        }
     }
 
     /**
      * Returns true if the CheckComboBox is editable.
      */
     public final boolean isCheckComboBoxEditable() {
-        return checkComboBoxEditableProperty().get();
+        return checkComboBoxEditable != null && checkComboBoxEditable.get();
+    }
+
+
+    // --- selection rules
+    private ObjectProperty<SelectionRules<T>> selectionRules;
+
+    private final SelectionRules<T> defaultSelectionRules;
+
+    /**
+     * The {@link SelectionRules} that the checked items must obey. When null,
+     * any combination of items may be checked.
+     */
+    public final ObjectProperty<SelectionRules<T>> selectionRulesProperty() {
+        if (selectionRules == null) {
+            selectionRules = new SimpleObjectProperty<SelectionRules<T>>(this, "selectionRules", defaultSelectionRules);
+        }
+        return selectionRules;
+    }
+
+    /**
+     * Sets the {@link SelectionRules} to be enforced in this cell.
+     */
+    public final void setSelectionRules(SelectionRules<T> value) {
+        if (selectionRules != null || value != defaultSelectionRules) {
+            selectionRulesProperty().set(value);
+        }
+    }
+
+    /**
+     * Returns the {@link SelectionRules} enforced in this cell.
+     */
+    public final SelectionRules<T> getSelectionRules() {
+        return selectionRules == null ? defaultSelectionRules : selectionRules.get();
     }
 
 
@@ -330,7 +420,7 @@ public class CheckComboBoxTableCell<S, T> extends TableCell<S, T> {
         }
 
         if (checkComboBox == null) {
-            checkComboBox = CellUtils.createCheckComboBox(this, items, converterProperty());
+            checkComboBox = CellUtils.createCheckComboBox(this, items, converterProperty(), selectionRulesProperty());
             //CheckComboBox doesn't seem to be editable/non-editable
             //checkComboBox.editableProperty().bind(checkComboBoxEditableProperty());
         }
@@ -359,6 +449,22 @@ public class CheckComboBoxTableCell<S, T> extends TableCell<S, T> {
     @Override
     public void updateItem(T item, boolean empty) {
         super.updateItem(item, empty);
+
+        //In a wide table, a column out of view catches up once it is scrolled into view
+        WideTableMode wideTableMode = WideTableMode.of(getTableView());
+        if (wideTableMode != null) {
+            if (!isEditing() && !empty && !wideTableMode.isVisible(getTableColumn())) {
+                wideTableMode.defer(this);
+                return;
+            }
+        }
+        CellUtils.updateItem(this, getConverter(), null, null, checkComboBox);
+    }
+
+    /**
+     * Does the update that {@link #updateItem} skipped while the column was out of view.
+     */
+    void updateDeferred() {
         CellUtils.updateItem(this, getConverter(), null, null, checkComboBox);
     }
 }
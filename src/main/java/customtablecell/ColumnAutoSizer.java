@@ -0,0 +1,452 @@
+package customtablecell;
+
+import javafx.beans.InvalidationListener;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.event.EventHandler;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+import javafx.util.StringConverter;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sizes a {@link CheckComboBoxTableCell} column to fit its content, without measuring the
+ * text of every row every time.
+ * <ul>
+ * <li>Widths are cached per font and per distinct text, and a column of checked items has
+ * few distinct texts, so most rows cost a map lookup.</li>
+ * <li>Tables with more than {@link #SAMPLE_SIZE} rows are sampled: only that many random rows
+ * are measured. A rare, unusually long value can be missed; double-clicking the divider again
+ * takes a new sample.</li>
+ * <li>The widest width is kept between auto-sizes. Once {@link #install installed}, it
+ * follows the rows however they change (edits, refreshes, replicated values): a value or a
+ * new row that is wider raises it; changing or removing the widest value makes the next
+ * auto-size measure again, so the column can shrink.</li>
+ * </ul>
+ * Once installed, double-clicking the column's header divider uses this instead of the
+ * table's own measuring. An installed auto-sizer listens to the value of every row, and
+ * looks up the fonts of the cells and the header again only when the table's skin, scene,
+ * stylesheets or style change.
+ *
+ * @param <S> The type of the TableView's items.
+ * @param <T> The type of the column.
+ */
+public class ColumnAutoSizer<S, T> {
+
+    /**
+     * Tables with more rows than this are sampled.
+     */
+    public static final int SAMPLE_SIZE = 1000;
+
+    /**
+     * Room for the cell's padding, as in the table's own auto-sizing.
+     */
+    private static final double PADDING = 10;
+
+    /**
+     * The key the table header puts its columns under in the properties of its dividers.
+     */
+    private static final String DIVIDER_COLUMN_KEY = "TableColumn";
+
+    /**
+     * Distinct texts cached per font before the cache starts over.
+     */
+    private static final int MAX_CACHED_TEXTS = 10_000;
+
+    /***************************************************************************
+     *                                                                         *
+     * Static API                                                              *
+     *                                                                         *
+     **************************************************************************/
+
+    /**
+     * Auto-sizes the column on double-clicks of its header divider, and keeps the cached
+     * widths up to date as rows are added, removed or changed.
+     *
+     * @param column    the column.
+     * @param converter the converter the column's cells show their items with, or null for
+     *                  the default.
+     */
+    public static <S, T> ColumnAutoSizer<S, T> install(TableColumn<S, T> column, StringConverter<T> converter) {
+        ColumnAutoSizer<S, T> autoSizer = new ColumnAutoSizer<>(column, converter);
+        column.tableViewProperty().addListener((observable, oldTable, newTable) -> {
+            if (oldTable != null) {
+                autoSizer.detach(oldTable);
+            }
+            if (newTable != null) {
+                autoSizer.attach(newTable);
+            }
+        });
+        if (column.getTableView() != null) {
+            autoSizer.attach(column.getTableView());
+        }
+        return autoSizer;
+    }
+
+
+    /***************************************************************************
+     *                                                                         *
+     * Fields                                                                  *
+     *                                                                         *
+     **************************************************************************/
+
+    private final TableColumn<S, T> column;
+
+    private final StringConverter<T> converter;
+
+    private final Text measuringText = new Text();
+
+    private final Map<Font, Map<String, Double>> widths = new HashMap<>();
+
+    /**
+     * The widest text seen, or NaN when it has to be measured again.
+     */
+    private double widest = Double.NaN;
+
+    private String widestText;
+
+    private Font widestFont;
+
+    /**
+     * The fonts of the column's cells and header as styled, or null when they have to be
+     * looked up again.
+     */
+    private Font cellFont;
+
+    private Font headerFont;
+
+    /**
+     * The value listened to for every row, as the cell value factory gave it when the row
+     * was added. Factories may return a new value on every call, so it is removed from this
+     * one, not from whatever the factory returns by then.
+     */
+    private final Map<S, ObservableValue<T>> observed = new IdentityHashMap<>();
+
+    private final EventHandler<MouseEvent> dividerHandler = this::dividerPressed;
+
+    private final ChangeListener<T> valueListener = (observable, oldValue, newValue) -> changed(oldValue, newValue);
+
+    private final ListChangeListener<S> rowsListener = this::rowsChanged;
+
+    private final ChangeListener<ObservableList<S>> itemsListener = this::itemsChanged;
+
+    private final InvalidationListener styleListener = observable -> forgetFonts();
+
+    private final ChangeListener<Scene> sceneListener = this::sceneChanged;
+
+
+    /***************************************************************************
+     *                                                                         *
+     * Constructors                                                            *
+     *                                                                         *
+     **************************************************************************/
+
+    /**
+     * Creates an auto-sizer that is only used when {@link #autoSize()} is called. Use
+     * {@link #install} to hook it up to the header and to the rows.
+     */
+    public ColumnAutoSizer(TableColumn<S, T> column, StringConverter<T> converter) {
+        this.column = column;
+        this.converter = converter != null ? converter : CellUtils.<T>defaultStringConverter();
+    }
+
+
+    /***************************************************************************
+     *                                                                         *
+     * Public API                                                              *
+     *                                                                         *
+     **************************************************************************/
+
+    /**
+     * Sets the column's width to fit its content.
+     */
+    public void autoSize() {
+        column.setPrefWidth(Math.max(column.getMinWidth(), Math.min(column.getMaxWidth(), computeWidth())));
+    }
+
+    /**
+     * Returns the width that fits the column's content, measuring only what isn't known yet.
+     */
+    public double computeWidth() {
+        Font font = cellFont();
+        boolean measured = !Double.isNaN(widest) && font.equals(widestFont);
+        if (!measured) {
+            widest = 0;
+            widestText = null;
+            widestFont = font;
+        }
+        TableView<S> tableView = column.getTableView();
+        List<S> rows = tableView == null ? null : tableView.getItems();
+        if (rows != null) {
+            if (rows.size() > SAMPLE_SIZE) {
+                //Every sample adds to what the earlier ones found
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < SAMPLE_SIZE; i++) {
+                    consider(rows.get(random.nextInt(rows.size())), font);
+                }
+            } else if (!measured) {
+                for (int i = 0; i < rows.size(); i++) {
+                    consider(rows.get(i), font);
+                }
+            }
+        }
+        double header = column.getText() == null ? 0 : measure(column.getText(), headerFont());
+        return Math.max(widest, header) + PADDING;
+    }
+
+    /**
+     * Forgets the widest width, so the next auto-size measures the rows again.
+     */
+    public void invalidate() {
+        widest = Double.NaN;
+    }
+
+
+    /***************************************************************************
+     *                                                                         *
+     * Private implementation                                                  *
+     *                                                                         *
+     **************************************************************************/
+
+    private void consider(S row, Font font) {
+        ObservableValue<T> value = column.getCellObservableValue(row);
+        String text = value == null ? null : converter.toString(value.getValue());
+        if (text != null) {
+            consider(text, measure(text, font));
+        }
+    }
+
+    private void consider(String text, double width) {
+        if (width > widest) {
+            widest = width;
+            widestText = text;
+        }
+    }
+
+    private void changed(T oldValue, T newValue) {
+        if (Double.isNaN(widest)) {
+            return;
+        }
+        String newText = converter.toString(newValue);
+        String oldText = converter.toString(oldValue);
+        if (newText != null && !newText.equals(oldText)) {
+            double width = measure(newText, widestFont);
+            if (width > widest) {
+                consider(newText, width);
+                return;
+            }
+        }
+        if (oldText != null && oldText.equals(widestText) && !oldText.equals(newText)) {
+            //Other rows may still have it, but we can't tell without looking
+            invalidate();
+        }
+    }
+
+    private void rowsChanged(ListChangeListener.Change<? extends S> change) {
+        TableView<S> tableView = column.getTableView();
+        while (change.next()) {
+            if (change.wasPermutated()) {
+                continue;
+            }
+            for (S row : change.getRemoved()) {
+                ObservableValue<T> value = unobserve(row);
+                if (value != null) {
+                    changed(value.getValue(), null);
+                }
+            }
+            if (change.getAddedSize() > SAMPLE_SIZE) {
+                //Too many to measure one by one; the next auto-size measures or samples them
+                invalidate();
+            }
+            for (S row : change.getAddedSubList()) {
+                ObservableValue<T> value = observe(tableView, row);
+                if (value != null) {
+                    changed(null, value.getValue());
+                }
+            }
+        }
+    }
+
+    private void itemsChanged(ObservableValue<? extends ObservableList<S>> observable, ObservableList<S> oldItems,
+                              ObservableList<S> newItems) {
+        unobserve(oldItems);
+        observe(column.getTableView(), newItems);
+    }
+
+    private void sceneChanged(ObservableValue<? extends Scene> observable, Scene oldScene, Scene newScene) {
+        if (oldScene != null) {
+            oldScene.getStylesheets().removeListener(styleListener);
+        }
+        if (newScene != null) {
+            newScene.getStylesheets().addListener(styleListener);
+        }
+        forgetFonts();
+    }
+
+    private void forgetFonts() {
+        cellFont = null;
+        headerFont = null;
+    }
+
+    private void attach(TableView<S> tableView) {
+        tableView.addEventFilter(MouseEvent.MOUSE_PRESSED, dividerHandler);
+        tableView.itemsProperty().addListener(itemsListener);
+        observe(tableView, tableView.getItems());
+
+        tableView.skinProperty().addListener(styleListener);
+        tableView.styleProperty().addListener(styleListener);
+        tableView.getStylesheets().addListener(styleListener);
+        column.styleProperty().addListener(styleListener);
+        column.getStyleClass().addListener(styleListener);
+        tableView.sceneProperty().addListener(sceneListener);
+        sceneChanged(null, null, tableView.getScene());
+    }
+
+    private void detach(TableView<S> tableView) {
+        tableView.removeEventFilter(MouseEvent.MOUSE_PRESSED, dividerHandler);
+        tableView.itemsProperty().removeListener(itemsListener);
+        unobserve(tableView.getItems());
+
+        tableView.skinProperty().removeListener(styleListener);
+        tableView.styleProperty().removeListener(styleListener);
+        tableView.getStylesheets().removeListener(styleListener);
+        column.styleProperty().removeListener(styleListener);
+        column.getStyleClass().removeListener(styleListener);
+        tableView.sceneProperty().removeListener(sceneListener);
+        sceneChanged(null, tableView.getScene(), null);
+    }
+
+    private void observe(TableView<S> tableView, ObservableList<S> rows) {
+        invalidate();
+        if (rows != null) {
+            rows.addListener(rowsListener);
+            for (S row : rows) {
+                observe(tableView, row);
+            }
+        }
+    }
+
+    private void unobserve(ObservableList<S> rows) {
+        invalidate();
+        if (rows != null) {
+            rows.removeListener(rowsListener);
+        }
+        for (ObservableValue<T> value : observed.values()) {
+            value.removeListener(valueListener);
+        }
+        observed.clear();
+    }
+
+    /**
+     * Listens to the row's value, and returns it; null if the row has none. A row that is
+     * in the table twice is listened to once.
+     */
+    private ObservableValue<T> observe(TableView<S> tableView, S row) {
+        ObservableValue<T> value = observed.get(row);
+        if (value == null) {
+            value = cellValue(tableView, row);
+            if (value != null) {
+                value.addListener(valueListener);
+                observed.put(row, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Stops listening to the row's value, and returns it; null if it wasn't listened to.
+     */
+    private ObservableValue<T> unobserve(S row) {
+        ObservableValue<T> value = observed.remove(row);
+        if (value != null) {
+            value.removeListener(valueListener);
+        }
+        return value;
+    }
+
+    /**
+     * The value of the row in the column. Unlike {@link TableColumn#getCellObservableValue},
+     * this works for a table the column has just left, too.
+     */
+    private ObservableValue<T> cellValue(TableView<S> tableView, S row) {
+        if (tableView == null || column.getCellValueFactory() == null) {
+            return null;
+        }
+        return column.getCellValueFactory().call(new TableColumn.CellDataFeatures<>(tableView, column, row));
+    }
+
+    private double measure(String text, Font font) {
+        Map<String, Double> cache = widths.computeIfAbsent(font, f -> new HashMap<>());
+        Double width = cache.get(text);
+        if (width == null) {
+            if (cache.size() >= MAX_CACHED_TEXTS) {
+                cache.clear();
+            }
+            measuringText.setFont(font);
+            measuringText.setText(text);
+            width = measuringText.getLayoutBounds().getWidth();
+            cache.put(text, width);
+        }
+        return width;
+    }
+
+    /**
+     * The font of the column's cells, as styled; the default font until there are any.
+     */
+    private Font cellFont() {
+        TableView<S> tableView = column.getTableView();
+        if (cellFont == null && tableView != null) {
+            for (Node node : tableView.lookupAll(".table-cell")) {
+                if (node instanceof TableCell && ((TableCell<?, ?>) node).getTableColumn() == column) {
+                    cellFont = ((TableCell<?, ?>) node).getFont();
+                    break;
+                }
+            }
+        }
+        return cellFont != null ? cellFont : Font.getDefault();
+    }
+
+    /**
+     * The font of the column's header, as styled; the default font until it is shown.
+     */
+    private Font headerFont() {
+        TableView<S> tableView = column.getTableView();
+        if (headerFont == null && tableView != null) {
+            for (Node header : tableView.lookupAll(".column-header")) {
+                for (Node node : header.lookupAll(".label")) {
+                    if (node instanceof Label && column.getText().equals(((Label) node).getText())) {
+                        headerFont = ((Label) node).getFont();
+                        return headerFont;
+                    }
+                }
+            }
+        }
+        return headerFont != null ? headerFont : Font.getDefault();
+    }
+
+    private void dividerPressed(MouseEvent event) {
+        if (event.getClickCount() != 2 || event.getButton() != MouseButton.PRIMARY) {
+            return;
+        }
+        if (event.getTarget() instanceof Node
+                && ((Node) event.getTarget()).getProperties().get(DIVIDER_COLUMN_KEY) == column) {
+            autoSize();
+            event.consume();
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package customtablecell;
+
+import javafx.beans.binding.Bindings;
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.scene.control.TreeItem;
+import javafx.scene.control.TreeTableColumn;
+import javafx.scene.control.TreeTableView;
+import javafx.util.StringConverter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Groups rows by the combination of options checked in them (all the "Open, Cut" rows
+ * together, say), as a tree of {@link TreeItem TreeItems} that can be shown in a
+ * {@link TreeTableView}.
+ * <p>
+ * <p>The groups are kept up to date as rows are added, removed or have their options
+ * changed, without grouping everything again. Finding a row's place when it moves from one
+ * group to another takes a constant number of steps; to make that possible, the rows within
+ * a group are not kept in any particular order. What the move sets off is not constant:
+ * every change to a group's children is a {@link TreeItem} children change, which is passed
+ * up to the root, and a {@link TreeTableView} showing the tree counts its expanded rows
+ * again and lays out the visible ones. Dropping a group that became empty also searches
+ * the root's children for it, which grows with the number of groups.
+ * <p>
+ * <p>The tree has a hidden root, one child per non-empty group (in the order the groups
+ * appeared), and the rows under their group. Group items hold a {@link Group}, row items
+ * hold the row.
+ *
+ * @param <S> The type of the rows.
+ */
+public class ConditionGroups<S> {
+
+    /**
+     * The value of a group's TreeItem.
+     */
+    public static final class Group {
+
+        private final long mask;
+
+        private final String label;
+
+        private final IntegerProperty count = new SimpleIntegerProperty(this, "count");
+
+        Group(long mask, String label) {
+            this.mask = mask;
+            this.label = label;
+        }
+
+        /**
+         * The options checked in every row of the group, as a {@link SelectionRules} mask.
+         */
+        public long getMask() {
+            return mask;
+        }
+
+        /**
+         * The number of rows in the group.
+         */
+        public IntegerProperty countProperty() {
+            return count;
+        }
+
+        public int getCount() {
+            return count.get();
+        }
+
+        @Override
+        public String toString() {
+            return label + " (" + count.get() + ")";
+        }
+    }
+
+
+    /***************************************************************************
+     *                                                                         *
+     * Fields                                                                  *
+     *                                                                         *
+     **************************************************************************/
+
+    private final ObservableList<S> rows;
+
+    private final Function<S, ObservableValue<String>> condition;
+
+    private final SelectionRules<String> rules;
+
+    private final StringConverter<String> converter;
+
+    private final Function<S, String> rowText;
+
+    private final TreeItem<Object> root = new TreeItem<>();
+
+    private final Map<Long, GroupNode> groups = new HashMap<>();
+
+    private final Map<S, RowNode> rowNodes = new IdentityHashMap<>();
+
+    //Rows that were only moved stay where they are in their group
+    private final ListChangeListener<S> rowsListener =
+            CellUtils.rowsListener(this::removeRow, added -> added.forEach(this::addRow));
+
+
+    /***************************************************************************
+     *                                                                         *
+     * Constructors                                                            *
+     *                                                                         *
+     **************************************************************************/
+
+    /**
+     * Groups the given rows, and keeps following them. The values are read as
+     * {@link MultiValueStringConverter} writes them.
+     *
+     * @param rows      the rows, typically {@code tableView.getItems()}.
+     * @param condition returns the value of a row whose checked options it is grouped by.
+     * @param rules     the options, to tell which combination a value is.
+     * @param rowText   what to show for a row in the tree.
+     */
+    public ConditionGroups(ObservableList<S> rows,
+                           Function<S, ObservableValue<String>> condition,
+                           SelectionRules<String> rules,
+                           Function<S, String> rowText) {
+        this(rows, condition, rules, null, rowText);
+    }
+
+    /**
+     * Groups the given rows, and keeps following them.
+     *
+     * @param rows      the rows, typically {@code tableView.getItems()}.
+     * @param condition returns the value of a row whose checked options it is grouped by.
+     * @param rules     the options, to tell which combination a value is.
+     * @param converter the converter the column's cells write their values with, or null
+     *                  for {@link MultiValueStringConverter}'s way.
+     * @param rowText   what to show for a row in the tree.
+     */
+    public ConditionGroups(ObservableList<S> rows,
+                           Function<S, ObservableValue<String>> condition,
+                           SelectionRules<String> rules,
+                           StringConverter<String> converter,
+                           Function<S, String> rowText) {
+        this.rows = rows;
+        this.condition = condition;
+        this.rules = rules;
+        this.converter = converter;
+        this.rowText = rowText;
+        root.setExpanded(true);
+        for (S row : rows) {
+            addRow(row);
+        }
+        rows.addListener(rowsListener);
+    }
+
+
+    /***************************************************************************
+     *                                                                         *
+     * Public API                                                              *
+     *                                                                         *
+     **************************************************************************/
+
+    /**
+     * Returns the root of the tree.
+     */
+    public TreeItem<Object> getRoot() {
+        return root;
+    }
+
+    /**
+     * Creates a TreeTableView showing the groups, with their counts, and the rows in them.
+     * Groups start collapsed.
+     */
+    public TreeTableView<Object> createTreeTableView() {
+        StringConverter<TreeItem<Object>> converter = CellUtils.defaultTreeItemStringConverter();
+
+        TreeTableColumn<Object, String> nameColumn = new TreeTableColumn<>("Group / PO");
+        nameColumn.setPrefWidth(150);
+        nameColumn.setCellValueFactory(cellData -> {
+            TreeItem<Object> item = cellData.getValue();
+            if (item.getValue() instanceof Group) {
+                //Follows the count as rows come and go
+                return Bindings.createStringBinding(() -> converter.toString(item),
+                        ((Group) item.getValue()).countProperty());
+            }
+            return new ReadOnlyStringWrapper(rowText.apply(rowOf(item)));
+        });
+
+        TreeTableColumn<Object, String> conditionColumn = new TreeTableColumn<>("Condition");
+        conditionColumn.setPrefWidth(150);
+        conditionColumn.setCellValueFactory(cellData -> {
+            TreeItem<Object> item = cellData.getValue();
+            return item.getValue() instanceof Group ? null : condition.apply(rowOf(item));
+        });
+
+        TreeTableView<Object> treeTableView = new TreeTableView<>(root);
+        treeTableView.setShowRoot(false);
+        treeTableView.getColumns().add(nameColumn);
+        treeTableView.getColumns().add(conditionColumn);
+        return treeTableView;
+    }
+
+    /**
+     * Stops following the rows.
+     */
+    public void dispose() {
+        rows.removeListener(rowsListener);
+        for (RowNode node : rowNodes.values()) {
+            node.value.removeListener(node);
+        }
+        rowNodes.clear();
+    }
+
+
+    /***************************************************************************
+     *                                                                         *
+     * Private implementation                                                  *
+     *                                                                         *
+     **************************************************************************/
+
+    @SuppressWarnings("unchecked")
+    private S rowOf(TreeItem<Object> item) {
+        return (S) item.getValue();
+    }
+
+    private void addRow(S row) {
+        if (rowNodes.containsKey(row)) {
+            return;
+        }
+        RowNode node = new RowNode(row, condition.apply(row));
+        rowNodes.put(row, node);
+        groupFor(rules.maskOf(node.value.getValue(), converter)).add(node);
+    }
+
+    private void removeRow(S row) {
+        RowNode node = rowNodes.remove(row);
+        if (node != null) {
+            node.value.removeListener(node);
+            node.group.remove(node);
+        }
+    }
+
+    private GroupNode groupFor(long mask) {
+        GroupNode group = groups.get(mask);
+        if (group == null) {
+            String label = mask == 0 ? "(None)" : rules.valueOf(mask, converter);
+            group = new GroupNode(new Group(mask, label));
+            groups.put(mask, group);
+            root.getChildren().add(group.item);
+        }
+        return group;
+    }
+
+    private class RowNode implements ChangeListener<String> {
+
+        final TreeItem<Object> item;
+
+        final ObservableValue<String> value;
+
+        GroupNode group;
+
+        /**
+         * Where this row is among its group's children.
+         */
+        int index;
+
+        RowNode(S row, ObservableValue<String> value) {
+            this.item = new TreeItem<>(row);
+            this.value = value;
+            value.addListener(this);
+        }
+
+        /**
+         * The row's options changed: move it to its new group.
+         */
+        @Override
+        public void changed(ObservableValue<? extends String> observable, String oldValue, String newValue) {
+            long mask = rules.maskOf(newValue, converter);
+            if (mask != group.group.getMask()) {
+                group.remove(this);
+                groupFor(mask).add(this);
+            }
+        }
+    }
+
+    private class GroupNode {
+
+        final Group group;
+
+        final TreeItem<Object> item;
+
+        /**
+         * The rows, in the same order as the item's children.
+         */
+        final List<RowNode> members = new ArrayList<>();
+
+        GroupNode(Group group) {
+            this.group = group;
+            this.item = new TreeItem<>(group);
+        }
+
+        void add(RowNode node) {
+            node.group = this;
+            node.index = members.size();
+            members.add(node);
+            item.getChildren().add(node.item);
+            group.count.set(members.size());
+        }
+
+        /**
+         * Swaps the last row into the removed row's place, so nothing else has to shift.
+         */
+        void remove(RowNode node) {
+            int last = members.size() - 1;
+            RowNode moved = members.remove(last);
+            item.getChildren().remove(last);
+            if (moved != node) {
+                //Only after the last item is out, so it is never in the children twice
+                members.set(node.index, moved);
+                moved.index = node.index;
+                item.getChildren().set(node.index, moved.item);
+            }
+            node.group = null;
+            group.count.set(members.size());
+
+            if (members.isEmpty()) {
+                groups.remove(group.getMask());
+                root.getChildren().remove(item);
+            }
+        }
+    }
+}
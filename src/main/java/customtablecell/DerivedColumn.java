@@ -0,0 +1,396 @@
+package customtablecell;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.util.Callback;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+/**
+ * Maintains a column whose values are derived from another value of each row, such as a
+ * severity score computed from the checked conditions.
+ * <p>
+ * <p>When one row's source value changes (an edit was committed, for instance), only that
+ * row is recomputed, right away; so are small sets of rows. When the derivation itself
+ * changes, or at least {@link #CHUNK_SIZE} rows are added at once, the rows are recomputed
+ * with fork-join over chunks of rows, off the JavaFX Application Thread, and the results are
+ * published back a batch per pulse so the UI keeps responding.
+ * <p>
+ * <p>The derivation function is called from pool threads during bulk recomputations, so it
+ * must only depend on the source value it is given.
+ *
+ * @param <S> The type of the TableView's items.
+ * @param <V> The type of the source value.
+ * @param <R> The type of the derived value.
+ */
+public class DerivedColumn<S, V, R> {
+
+    /**
+     * Rows per fork-join task.
+     */
+    static final int CHUNK_SIZE = 1024;
+
+    /**
+     * Rows published back per pulse.
+     */
+    static final int PUBLISH_BATCH_SIZE = 2048;
+
+    /***************************************************************************
+     *                                                                         *
+     * Fields                                                                  *
+     *                                                                         *
+     **************************************************************************/
+
+    private final TableView<S> tableView;
+
+    private final Function<S, ObservableValue<V>> source;
+
+    private Function<? super V, ? extends R> function;
+
+    private final Map<S, Entry> entries = new IdentityHashMap<>();
+
+    private final ArrayDeque<Batch> pending = new ArrayDeque<>();
+
+    private final Publisher publisher = new Publisher();
+
+    /**
+     * Bumped whenever the function changes, so that results computed with an old
+     * function are never published.
+     */
+    private long generation;
+
+    /**
+     * Bumped whenever a single row is recomputed, so that a bulk result computed
+     * before that can't overwrite it.
+     */
+    private long stamp;
+
+    private ObservableList<S> items;
+
+    //Rows that were only moved keep their values
+    private final ListChangeListener<S> itemsListener =
+            CellUtils.rowsListener(this::detach, added -> recompute(attach(added)));
+
+    private final InvalidationListener itemsPropertyListener = this::itemsChanged;
+
+
+    /***************************************************************************
+     *                                                                         *
+     * Constructors                                                            *
+     *                                                                         *
+     **************************************************************************/
+
+    /**
+     * Creates a derived column over the items of the given TableView, and computes it for
+     * the rows that are already there.
+     *
+     * @param tableView the TableView whose items the values are derived for.
+     * @param source    returns the value of a row that the derived value depends on.
+     * @param function  derives the value from the source value.
+     */
+    public DerivedColumn(TableView<S> tableView,
+                         Function<S, ObservableValue<V>> source,
+                         Function<? super V, ? extends R> function) {
+        this.tableView = Objects.requireNonNull(tableView);
+        this.source = Objects.requireNonNull(source);
+        this.function = Objects.requireNonNull(function);
+        tableView.itemsProperty().addListener(itemsPropertyListener);
+        itemsChanged(null);
+    }
+
+
+    /***************************************************************************
+     *                                                                         *
+     * Public API                                                              *
+     *                                                                         *
+     **************************************************************************/
+
+    /**
+     * Returns a cell value factory for a {@link TableColumn} that shows the derived values.
+     */
+    public Callback<TableColumn.CellDataFeatures<S, R>, ObservableValue<R>> cellValueFactory() {
+        return cellData -> {
+            Entry entry = entries.get(cellData.getValue());
+            return entry == null ? null : entry.result.getReadOnlyProperty();
+        };
+    }
+
+    /**
+     * Returns the derived value of the given row, or null if it hasn't been computed yet.
+     */
+    public R getValue(S row) {
+        Entry entry = entries.get(row);
+        return entry == null ? null : entry.result.get();
+    }
+
+    /**
+     * Replaces the derivation (for example, when the scoring rules change) and recomputes
+     * every row in the background.
+     */
+    public void setFunction(Function<? super V, ? extends R> function) {
+        this.function = Objects.requireNonNull(function);
+        generation++;
+        pending.clear();
+        recomputeAll();
+    }
+
+    /**
+     * Recomputes every row in the background, for instance after the derivation started
+     * depending on something else that changed.
+     */
+    public void recomputeAll() {
+        recompute(new ArrayList<>(entries.values()));
+    }
+
+    /**
+     * Stops following the TableView and its rows.
+     */
+    public void dispose() {
+        tableView.itemsProperty().removeListener(itemsPropertyListener);
+        if (items != null) {
+            items.removeListener(itemsListener);
+            items = null;
+        }
+        for (S row : new ArrayList<>(entries.keySet())) {
+            detach(row);
+        }
+        generation++;
+        pending.clear();
+        publisher.stop();
+    }
+
+
+    /***************************************************************************
+     *                                                                         *
+     * Private implementation                                                  *
+     *                                                                         *
+     **************************************************************************/
+
+    private void itemsChanged(Observable observable) {
+        if (items != null) {
+            items.removeListener(itemsListener);
+            for (S row : new ArrayList<>(entries.keySet())) {
+                detach(row);
+            }
+        }
+        items = tableView.getItems();
+        if (items != null) {
+            items.addListener(itemsListener);
+            recompute(attach(items));
+        }
+    }
+
+    private List<Entry> attach(List<? extends S> rows) {
+        List<Entry> attached = new ArrayList<>(rows.size());
+        for (S row : rows) {
+            if (!entries.containsKey(row)) {
+                Entry entry = new Entry(source.apply(row));
+                entries.put(row, entry);
+                attached.add(entry);
+            }
+        }
+        return attached;
+    }
+
+    private void detach(S row) {
+        Entry entry = entries.remove(row);
+        if (entry != null) {
+            entry.value.removeListener(entry);
+            entry.detached = true;
+        }
+    }
+
+    /**
+     * Snapshots the source values on this thread, then derives them in the fork-join pool.
+     * Fewer rows than a chunk are derived right away instead, so they never show up blank.
+     */
+    private void recompute(List<Entry> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        if (rows.size() < CHUNK_SIZE) {
+            for (Entry entry : rows) {
+                entry.recompute();
+            }
+            return;
+        }
+        final List<Entry> targets = new ArrayList<>(rows);
+        final Object[] values = new Object[targets.size()];
+        for (int i = 0; i < targets.size(); i++) {
+            values[i] = targets.get(i).value.getValue();
+        }
+        final Object[] results = new Object[targets.size()];
+        final Function<? super V, ? extends R> f = function;
+        final long batchGeneration = generation;
+        final long batchStamp = stamp;
+
+        ForkJoinPool.commonPool().execute(() -> {
+            try {
+                new Derive(f, values, results, 0, values.length).invoke();
+            } catch (RuntimeException e) {
+                //Let the application thread's handler report it, like any other failure in the UI
+                Platform.runLater(() -> {
+                    throw e;
+                });
+                return;
+            }
+            Platform.runLater(() -> {
+                if (batchGeneration == generation) {
+                    pending.add(new Batch(targets, results, batchStamp));
+                    publisher.start();
+                }
+            });
+        });
+    }
+
+    private class Entry implements ChangeListener<V> {
+
+        final ObservableValue<V> value;
+
+        final ReadOnlyObjectWrapper<R> result = new ReadOnlyObjectWrapper<>();
+
+        long stamp;
+
+        boolean detached;
+
+        Entry(ObservableValue<V> value) {
+            this.value = value;
+            value.addListener(this);
+        }
+
+        /**
+         * Only this row changed, so only this row is recomputed.
+         */
+        @Override
+        public void changed(ObservableValue<? extends V> observable, V oldValue, V newValue) {
+            recompute();
+        }
+
+        /**
+         * Derives the value right away; bulk results computed before this are dropped.
+         */
+        void recompute() {
+            stamp = ++DerivedColumn.this.stamp;
+            result.set(function.apply(value.getValue()));
+        }
+    }
+
+    private class Batch {
+
+        final List<Entry> targets;
+
+        final Object[] results;
+
+        final long stamp;
+
+        int next;
+
+        Batch(List<Entry> targets, Object[] results, long stamp) {
+            this.targets = targets;
+            this.results = results;
+            this.stamp = stamp;
+        }
+    }
+
+    /**
+     * Publishes at most {@link #PUBLISH_BATCH_SIZE} results per pulse.
+     */
+    private class Publisher extends AnimationTimer {
+
+        private boolean running;
+
+        @Override
+        public void start() {
+            if (!running) {
+                running = true;
+                super.start();
+            }
+        }
+
+        @Override
+        public void stop() {
+            running = false;
+            super.stop();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void handle(long now) {
+            int budget = PUBLISH_BATCH_SIZE;
+            while (budget > 0 && !pending.isEmpty()) {
+                Batch batch = pending.peek();
+                int end = Math.min(batch.targets.size(), batch.next + budget);
+                for (int i = batch.next; i < end; i++) {
+                    Entry entry = batch.targets.get(i);
+                    //Skip rows that are gone, or that were recomputed on their own since
+                    if (!entry.detached && entry.stamp <= batch.stamp) {
+                        entry.result.set((R) batch.results[i]);
+                    }
+                }
+                budget -= end - batch.next;
+                batch.next = end;
+                if (batch.next == batch.targets.size()) {
+                    pending.remove();
+                }
+            }
+            if (pending.isEmpty()) {
+                stop();
+            }
+        }
+    }
+
+    /**
+     * Splits the rows in halves until they fit in a chunk.
+     */
+    private static class Derive extends RecursiveAction {
+
+        private final Function<Object, Object> function;
+
+        private final Object[] values;
+
+        private final Object[] results;
+
+        private final int from;
+
+        private final int to;
+
+        @SuppressWarnings("unchecked")
+        Derive(Function<?, ?> function, Object[] values, Object[] results, int from, int to) {
+            this.function = (Function<Object, Object>) function;
+            this.values = values;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CHUNK_SIZE) {
+                for (int i = from; i < to; i++) {
+                    results[i] = function.apply(values[i]);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Derive(function, values, results, from, middle),
+                        new Derive(function, values, results, middle, to));
+            }
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package customtablecell;
+
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.value.ObservableValue;
+import javafx.event.Event;
+import javafx.event.EventHandler;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TablePosition;
+import javafx.scene.control.TableView;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.util.StringConverter;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.LongConsumer;
+
+/**
+ * Lets the options of a {@link CheckComboBoxTableCell} column be toggled straight from the
+ * keyboard, without opening the popup.
+ * <p>
+ * <p>While a cell of the column has the focus (and nothing is being edited), pressing
+ * <ul>
+ * <li>1 to 9 toggles the first to ninth option, and 0 the tenth;</li>
+ * <li>an option's mnemonic toggles that option. The mnemonic of an option is the first
+ * letter of its name that no option before it has taken already, so "Open", "Cut" and "Ok"
+ * get O, C and K.</li>
+ * </ul>
+ * The rest of the selection is corrected with the column's {@link SelectionRules}, the new
+ * value is committed right away, through the column's usual edit commit event, and the
+ * focus moves down to the next row. Keys pressed with Ctrl, Alt or Meta are left alone, as
+ * are all the keys the table already uses.
+ * <p>
+ * <p>The time from a key press to the row's value being updated can be measured with a
+ * {@link #setLatencyListener latency listener}.
+ *
+ * @param <S> The type of the TableView's items.
+ */
+public class InlineToggleEditing<S> {
+
+    /***************************************************************************
+     *                                                                         *
+     * Static API                                                              *
+     *                                                                         *
+     **************************************************************************/
+
+    /**
+     * Turns on keyboard toggling for the given column, whichever table it ends up in.
+     *
+     * @param column    the column, which has to show its values as checked options.
+     * @param rules     the options of the column and the rules they obey.
+     * @param converter the converter the column's cells use to write their checked options,
+     *                  or null for the default.
+     */
+    public static <S> InlineToggleEditing<S> install(TableColumn<S, String> column, SelectionRules<String> rules,
+                                                     StringConverter<String> converter) {
+        InlineToggleEditing<S> editing = new InlineToggleEditing<>(column, rules, converter);
+        column.tableViewProperty().addListener((observable, oldTable, newTable) -> {
+            if (oldTable != null) {
+                oldTable.removeEventFilter(KeyEvent.KEY_PRESSED, editing.keyHandler);
+            }
+            if (newTable != null) {
+                newTable.addEventFilter(KeyEvent.KEY_PRESSED, editing.keyHandler);
+            }
+        });
+        if (column.getTableView() != null) {
+            column.getTableView().addEventFilter(KeyEvent.KEY_PRESSED, editing.keyHandler);
+        }
+        return editing;
+    }
+
+
+    /***************************************************************************
+     *                                                                         *
+     * Fields                                                                  *
+     *                                                                         *
+     **************************************************************************/
+
+    private final TableColumn<S, String> column;
+
+    private final SelectionRules<String> rules;
+
+    private final StringConverter<String> converter;
+
+    /**
+     * The option each mnemonic letter toggles.
+     */
+    private final Map<Character, Integer> mnemonics = new HashMap<>();
+
+    private final EventHandler<KeyEvent> keyHandler = this::keyPressed;
+
+    private LongConsumer latencyListener;
+
+
+    /***************************************************************************
+     *                                                                         *
+     * Constructors                                                            *
+     *                                                                         *
+     **************************************************************************/
+
+    /**
+     * Creates the mode for the given column without hooking it up to any table. Use
+     * {@link #install} to have it listen to the keyboard.
+     */
+    public InlineToggleEditing(TableColumn<S, String> column, SelectionRules<String> rules,
+                               StringConverter<String> converter) {
+        this.column = column;
+        this.rules = rules;
+        this.converter = converter != null ? converter : CellUtils.<String>defaultStringConverter();
+
+        List<String> options = rules.getOptions();
+        for (int i = 0; i < options.size(); i++) {
+            String name = String.valueOf(options.get(i));
+            for (int c = 0; c < name.length(); c++) {
+                char letter = Character.toUpperCase(name.charAt(c));
+                if (letter >= 'A' && letter <= 'Z' && !mnemonics.containsKey(letter)) {
+                    mnemonics.put(letter, i);
+                    break;
+                }
+            }
+        }
+    }
+
+
+    /***************************************************************************
+     *                                                                         *
+     * Properties                                                              *
+     *                                                                         *
+     **************************************************************************/
+
+    // --- Enabled
+    private final BooleanProperty enabled = new SimpleBooleanProperty(this, "enabled", true);
+
+    /**
+     * While false, keys are left to the table as if the mode wasn't installed.
+     */
+    public final BooleanProperty enabledProperty() {
+        return enabled;
+    }
+
+    public final void setEnabled(boolean value) {
+        enabledProperty().set(value);
+    }
+
+    public final boolean isEnabled() {
+        return enabledProperty().get();
+    }
+
+    // --- Latency listener
+
+    /**
+     * Sets what to tell, for every committed key press, the time in nanoseconds from the key
+     * press to the row's value being updated. Null, the default, measures nothing.
+     */
+    public final void setLatencyListener(LongConsumer value) {
+        latencyListener = value;
+    }
+
+    public final LongConsumer getLatencyListener() {
+        return latencyListener;
+    }
+
+
+    /***************************************************************************
+     *                                                                         *
+     * Public API                                                              *
+     *                                                                         *
+     **************************************************************************/
+
+    /**
+     * Toggles the option at the given index in the given row and commits the result, the
+     * same way a key press would (without moving the focus).
+     *
+     * @return true if the row's value was updated.
+     */
+    public boolean toggle(int row, int index) {
+        return toggle(row, index, latencyListener == null ? 0 : System.nanoTime());
+    }
+
+
+    /***************************************************************************
+     *                                                                         *
+     * Private implementation                                                  *
+     *                                                                         *
+     **************************************************************************/
+
+    private void keyPressed(KeyEvent event) {
+        long start = latencyListener == null ? 0 : System.nanoTime();
+        if (!isEnabled() || event.isControlDown() || event.isAltDown() || event.isMetaDown()
+                || event.isShortcutDown()) {
+            return;
+        }
+        TableView<S> tableView = column.getTableView();
+        if (tableView == null || !tableView.isEditable() || !column.isEditable()
+                || tableView.getEditingCell() != null) {
+            return;
+        }
+        TablePosition<S, ?> focused = tableView.getFocusModel().getFocusedCell();
+        if (focused == null || focused.getTableColumn() != column || focused.getRow() < 0) {
+            return;
+        }
+        int index = optionFor(event.getCode());
+        if (index < 0) {
+            return;
+        }
+        event.consume();
+
+        int row = focused.getRow();
+        if (toggle(row, index, start) && row + 1 < tableView.getItems().size()) {
+            //Let the table move down the way it does for the arrow key, so it also scrolls if needed
+            Event.fireEvent(tableView, new KeyEvent(KeyEvent.KEY_PRESSED, "", "", KeyCode.DOWN,
+                    false, false, false, false));
+        }
+    }
+
+    /**
+     * Toggles and commits, telling the latency listener the time since {@code start}.
+     */
+    private boolean toggle(int row, int index, long start) {
+        TableView<S> tableView = column.getTableView();
+        if (tableView == null || row < 0 || row >= tableView.getItems().size()
+                || index < 0 || index >= rules.getOptions().size()) {
+            return false;
+        }
+        ObservableValue<String> value = column.getCellObservableValue(row);
+        String oldValue = value == null ? null : value.getValue();
+        //A stored value may break the rules already; commit it corrected, as the popup does
+        String newValue = rules.valueOfCorrected(rules.toggle(rules.maskOf(oldValue, converter), index), converter);
+
+        Event.fireEvent(column, new TableColumn.CellEditEvent<>(tableView,
+                new TablePosition<>(tableView, row, column), TableColumn.editCommitEvent(), newValue));
+
+        //Only count it if the commit handlers did write it back
+        ObservableValue<String> committed = column.getCellObservableValue(row);
+        if (committed == null || !Objects.equals(committed.getValue(), newValue)) {
+            return false;
+        }
+        LongConsumer listener = latencyListener;
+        if (listener != null) {
+            listener.accept(System.nanoTime() - start);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the index of the option the given key toggles, or -1 if it doesn't toggle one.
+     */
+    private int optionFor(KeyCode code) {
+        int index = -1;
+        if (code.isDigitKey()) {
+            //Both the digit row and the keypad; their names end with the digit
+            int digit = code.getName().charAt(code.getName().length() - 1) - '0';
+            index = digit == 0 ? 9 : digit - 1;
+        } else if (code.isLetterKey()) {
+            Integer mnemonic = mnemonics.get(code.getName().charAt(0));
+            index = mnemonic == null ? -1 : mnemonic;
+        }
+        return index < rules.getOptions().size() ? index : -1;
+    }
+}
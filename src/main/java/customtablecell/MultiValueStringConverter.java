@@ -0,0 +1,199 @@
+package customtablecell;
+
+import javafx.util.StringConverter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link StringConverter} for cells whose value is a list of checked items stored in a
+ * single String, such as the values of a {@link CheckComboBoxTableCell} column.
+ * <p>
+ * <p>Values are the items joined with {@code ", "}. Backslashes and commas inside an item
+ * are escaped with a backslash (as is a leading space), so items may contain anything.
+ * Values without any of those characters look exactly like the plain comma-separated lists
+ * used before, so existing values keep working. As with those, an empty last item is
+ * dropped.
+ * <p>
+ * <p>Pass it as the converter of {@link CheckComboBoxTableCell#forTableColumn(StringConverter, javafx.collections.ObservableList)}:
+ * the cell then shows the items unescaped, the CheckComboBox shows each option as is, and
+ * the checked items are committed through {@link #encode(List)}.
+ * <p>
+ * <p>Encoding and decoding use per-thread buffers and scan the characters directly, so no
+ * regular expressions or intermediate arrays are created. Instances are thread-safe.
+ */
+public class MultiValueStringConverter extends StringConverter<String> {
+
+    private static final char DELIMITER = ',';
+
+    private static final char ESCAPE = '\\';
+
+    private static final String SEPARATOR = ", ";
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(64));
+
+    private static final ThreadLocal<List<String>> ITEMS = ThreadLocal.withInitial(() -> new ArrayList<>(8));
+
+    private final StringConverter<String> itemConverter;
+
+    /**
+     * Creates a converter that shows each item as is.
+     */
+    public MultiValueStringConverter() {
+        this(CellUtils.<String>defaultStringConverter());
+    }
+
+    /**
+     * Creates a converter that shows each item with the given converter.
+     */
+    public MultiValueStringConverter(StringConverter<String> itemConverter) {
+        this.itemConverter = itemConverter;
+    }
+
+    /**
+     * Returns the converter used for each single item, such as the options in the
+     * CheckComboBox popup.
+     */
+    public StringConverter<String> getItemConverter() {
+        return itemConverter;
+    }
+
+    /**
+     * Joins the given items into one value, escaping where needed.
+     */
+    public String encode(List<String> items) {
+        StringBuilder sb = buffer();
+        for (int i = 0; i < items.size(); i++) {
+            if (i > 0) {
+                sb.append(SEPARATOR);
+            }
+            String item = items.get(i);
+            for (int c = 0; c < item.length(); c++) {
+                char ch = item.charAt(c);
+                if (ch == DELIMITER || ch == ESCAPE || (ch == ' ' && c == 0)) {
+                    sb.append(ESCAPE);
+                }
+                sb.append(ch);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Splits a value into its items, unescaping them.
+     */
+    public List<String> decode(String value) {
+        List<String> items = new ArrayList<>();
+        decode(value, items);
+        return items;
+    }
+
+    /**
+     * Splits a value into its items, unescaping them, and adds them to the given list.
+     * Items without escapes are substrings of the value; nothing else is allocated.
+     */
+    public void decode(String value, List<String> items) {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        final int length = value.length();
+        int start = 0;
+        while (start <= length) {
+            //Spaces after a delimiter only separate
+            while (start < length && value.charAt(start) == ' ') {
+                start++;
+            }
+            int end = start;
+            boolean escaped = false;
+            while (end < length && value.charAt(end) != DELIMITER) {
+                if (value.charAt(end) == ESCAPE) {
+                    escaped = true;
+                    end++;
+                }
+                end++;
+            }
+            end = Math.min(end, length);
+            if (end == length && start == end && start > 0) {
+                //A trailing delimiter doesn't start another item
+                break;
+            }
+            items.add(escaped ? unescape(value, start, end) : value.substring(start, end));
+            start = end + 1;
+        }
+    }
+
+    /**
+     * Shows a value as its items, unescaped and joined with {@code ", "}.
+     */
+    @Override
+    public String toString(String value) {
+        if (value == null) {
+            return null;
+        }
+        if (value.indexOf(ESCAPE) < 0 && itemConverter == CellUtils.<String>defaultStringConverter()) {
+            return value;
+        }
+        List<String> items = items();
+        decode(value, items);
+        StringBuilder sb = buffer();
+        for (int i = 0; i < items.size(); i++) {
+            if (i > 0) {
+                sb.append(SEPARATOR);
+            }
+            sb.append(itemConverter.toString(items.get(i)));
+        }
+        items.clear();
+        return sb.toString();
+    }
+
+    /**
+     * Reads a value the way {@link #toString(String)} shows it. Items are separated by
+     * commas; since the text isn't escaped, an item can't contain one.
+     */
+    @Override
+    public String fromString(String text) {
+        if (text == null) {
+            return null;
+        }
+        List<String> items = items();
+        int start = 0;
+        while (start <= text.length()) {
+            int end = text.indexOf(DELIMITER, start);
+            if (end < 0) {
+                end = text.length();
+            }
+            String item = text.substring(start, end).trim();
+            if (!item.isEmpty()) {
+                items.add(itemConverter.fromString(item));
+            }
+            start = end + 1;
+        }
+        String value = encode(items);
+        items.clear();
+        return value;
+    }
+
+    private static String unescape(String value, int start, int end) {
+        StringBuilder sb = buffer();
+        for (int i = start; i < end; i++) {
+            char ch = value.charAt(i);
+            if (ch == ESCAPE && i + 1 < end) {
+                ch = value.charAt(++i);
+            }
+            sb.append(ch);
+        }
+        return sb.toString();
+    }
+
+    private static StringBuilder buffer() {
+        StringBuilder sb = BUFFER.get();
+        sb.setLength(0);
+        return sb;
+    }
+
+    private static List<String> items() {
+        List<String> items = ITEMS.get();
+        items.clear();
+        return items;
+    }
+}
@@ -0,0 +1,430 @@
+package customtablecell;
+
+import javafx.util.StringConverter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * A compiled set of business rules over the options of a {@link CheckComboBoxTableCell}
+ * column, such as "Ok excludes Cut" or "Cut requires Open".
+ * <p>
+ * <p>Each option is assigned one bit of a {@code long}, so a selection is just a mask.
+ * When the rules are compiled, the transitive requirements, dependents and conflicts of
+ * every option are folded into per-option mask tables. Checking or unchecking an option
+ * is then a couple of bitwise operations, no matter how many rules were declared.
+ * <p>
+ * <p>To create a SelectionRules instance, use {@link #forOptions(List)}:
+ * <pre>
+ * SelectionRules&lt;String&gt; rules = SelectionRules.forOptions(options)
+ *         .excludes("Ok", "Cut")
+ *         .requires("Cut", "Open")
+ *         .compile();
+ * </pre>
+ * Instances are immutable and may be shared between cells and threads.
+ *
+ * @param <T> The type of the options, which is also the type of the TableColumn.
+ */
+public final class SelectionRules<T> {
+
+    /**
+     * A mask can hold at most this many options.
+     */
+    public static final int MAX_OPTIONS = Long.SIZE;
+
+    private static final MultiValueStringConverter CODEC = new MultiValueStringConverter();
+
+    private static final ThreadLocal<List<String>> SEPARATE_ITEMS = ThreadLocal.withInitial(ArrayList::new);
+
+    /***************************************************************************
+     *                                                                         *
+     * Static factories                                                        *
+     *                                                                         *
+     **************************************************************************/
+
+    /**
+     * Starts declaring rules for the given options. The options are copied, so later
+     * changes to the given list are not seen by the compiled rules.
+     *
+     * @param options the options shown in the CheckComboBox, in display order.
+     * @return a {@link Builder} to declare the rules with.
+     */
+    public static <T> Builder<T> forOptions(List<T> options) {
+        return new Builder<>(options);
+    }
+
+
+    /***************************************************************************
+     *                                                                         *
+     * Fields                                                                  *
+     *                                                                         *
+     **************************************************************************/
+
+    private final List<T> options;
+
+    private final Map<T, Integer> indices;
+
+    /**
+     * Everything option i requires, directly or transitively. Does not include i.
+     */
+    private final long[] requires;
+
+    /**
+     * Everything option i conflicts with, in either direction.
+     */
+    private final long[] excludes;
+
+    /**
+     * What has to be set when option i gets checked: i itself plus {@link #requires}.
+     */
+    private final long[] setOnCheck;
+
+    /**
+     * What has to be cleared when option i gets checked: conflicts of anything in
+     * {@link #setOnCheck}, plus everything that depends on those conflicts.
+     */
+    private final long[] clearOnCheck;
+
+    /**
+     * What has to be cleared when option i gets unchecked: i itself plus everything
+     * that requires it, directly or transitively.
+     */
+    private final long[] clearOnUncheck;
+
+
+    /***************************************************************************
+     *                                                                         *
+     * Constructors                                                            *
+     *                                                                         *
+     **************************************************************************/
+
+    private SelectionRules(List<T> options, Map<T, Integer> indices, long[] directRequires, long[] directExcludes) {
+        final int n = options.size();
+        this.options = options;
+        this.indices = indices;
+        this.requires = new long[n];
+        this.excludes = directExcludes;
+        this.setOnCheck = new long[n];
+        this.clearOnCheck = new long[n];
+        this.clearOnUncheck = new long[n];
+
+        //Transitive closure of the requirements
+        for (int i = 0; i < n; i++) {
+            long closure = directRequires[i];
+            long previous;
+            do {
+                previous = closure;
+                for (long rest = closure; rest != 0; rest &= rest - 1) {
+                    closure |= directRequires[Long.numberOfTrailingZeros(rest)];
+                }
+            } while (closure != previous);
+            requires[i] = closure & ~bit(i);
+            setOnCheck[i] = closure | bit(i);
+        }
+
+        //Dependents are the reverse of the requirements
+        for (int i = 0; i < n; i++) {
+            clearOnUncheck[i] |= bit(i);
+            for (long rest = requires[i]; rest != 0; rest &= rest - 1) {
+                clearOnUncheck[Long.numberOfTrailingZeros(rest)] |= bit(i);
+            }
+        }
+
+        for (int i = 0; i < n; i++) {
+            long conflicts = 0L;
+            for (long rest = setOnCheck[i]; rest != 0; rest &= rest - 1) {
+                conflicts |= excludes[Long.numberOfTrailingZeros(rest)];
+            }
+            long clear = conflicts;
+            for (long rest = conflicts; rest != 0; rest &= rest - 1) {
+                clear |= clearOnUncheck[Long.numberOfTrailingZeros(rest)];
+            }
+            if ((clear & setOnCheck[i]) != 0) {
+                throw new IllegalArgumentException(
+                        "The rules can never be satisfied once \"" + options.get(i) + "\" is checked.");
+            }
+            clearOnCheck[i] = clear;
+        }
+    }
+
+
+    /***************************************************************************
+     *                                                                         *
+     * Public API                                                              *
+     *                                                                         *
+     **************************************************************************/
+
+    /**
+     * Returns the options these rules were compiled for, in display order.
+     */
+    public List<T> getOptions() {
+        return options;
+    }
+
+    /**
+     * Returns the bit index of the given option, or -1 if it isn't one of the options.
+     */
+    public int indexOf(T option) {
+        Integer index = indices.get(option);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Checks the option at the given index and corrects the rest of the selection so it
+     * obeys the rules: its requirements get checked and whatever conflicts with them gets
+     * unchecked.
+     *
+     * @return the corrected mask.
+     */
+    public long check(long mask, int index) {
+        return (mask & ~clearOnCheck[index]) | setOnCheck[index];
+    }
+
+    /**
+     * Unchecks the option at the given index along with everything that requires it.
+     *
+     * @return the corrected mask.
+     */
+    public long uncheck(long mask, int index) {
+        return mask & ~clearOnUncheck[index];
+    }
+
+    /**
+     * Flips the option at the given index, correcting the rest of the selection.
+     *
+     * @return the corrected mask.
+     */
+    public long toggle(long mask, int index) {
+        return (mask & bit(index)) == 0 ? check(mask, index) : uncheck(mask, index);
+    }
+
+    /**
+     * Returns true if the given selection obeys every rule.
+     */
+    public boolean isValid(long mask) {
+        for (long rest = mask; rest != 0; rest &= rest - 1) {
+            int i = Long.numberOfTrailingZeros(rest);
+            if ((mask & requires[i]) != requires[i] || (mask & excludes[i]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Turns any selection into one that obeys the rules, by checking its options again in
+     * display order. Where two options conflict, the one further down the list wins.
+     *
+     * @return the given mask if it was already valid, otherwise the corrected mask.
+     */
+    public long correct(long mask) {
+        if (isValid(mask)) {
+            return mask;
+        }
+        long corrected = 0L;
+        for (long rest = mask; rest != 0; rest &= rest - 1) {
+            corrected = check(corrected, Long.numberOfTrailingZeros(rest));
+        }
+        return corrected;
+    }
+
+    /**
+     * Converts a cell value (a comma-separated list of options, as written by
+     * {@link MultiValueStringConverter}) to a mask.
+     * Anything that isn't one of the options is ignored.
+     */
+    public long maskOf(T value) {
+        return maskOf(value, null);
+    }
+
+    /**
+     * Converts a cell value to a mask, splitting it with the given converter the way
+     * {@link #valueOf(long, StringConverter)} joins it: with the converter itself if it is a
+     * {@link MultiValueStringConverter}, and otherwise as a comma-separated list whose items
+     * are read back with the converter. A null converter reads the value as
+     * {@link MultiValueStringConverter} writes it. Anything that isn't one of the options is
+     * ignored.
+     */
+    @SuppressWarnings("unchecked")
+    public long maskOf(T value, StringConverter<T> converter) {
+        if (value == null) {
+            return 0L;
+        }
+        long mask = 0L;
+        if (converter == null || converter instanceof MultiValueStringConverter) {
+            MultiValueStringConverter codec = converter == null ? CODEC : (MultiValueStringConverter) converter;
+            List<String> items = SEPARATE_ITEMS.get();
+            items.clear();
+            codec.decode((String) value, items);
+            for (int i = 0; i < items.size(); i++) {
+                int index = indexOf((T) items.get(i));
+                if (index >= 0) {
+                    mask |= bit(index);
+                }
+            }
+            items.clear();
+        } else {
+            for (String item : CellUtils.splitItems(value, converter)) {
+                int index = indexOf(converter.fromString(item));
+                if (index >= 0) {
+                    mask |= bit(index);
+                }
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Converts a mask back to a cell value, listing the options in display order.
+     */
+    @SuppressWarnings("unchecked")
+    public T valueOf(long mask) {
+        return valueOf(mask, (StringConverter<T>) (StringConverter<?>) CODEC);
+    }
+
+    /**
+     * Converts a mask back to a cell value, listing the options in display order and
+     * converting each of them with the given converter.
+     */
+    public T valueOf(long mask, StringConverter<T> converter) {
+        List<T> checked = new ArrayList<>(Long.bitCount(mask));
+        for (long rest = mask; rest != 0; rest &= rest - 1) {
+            checked.add(options.get(Long.numberOfTrailingZeros(rest)));
+        }
+        return CellUtils.joinItems(checked, converter);
+    }
+
+    /**
+     * Corrects the given selection and converts it to a cell value. This is what every
+     * editor commits, so they all store the same value for the same selection.
+     *
+     * @see #correct(long)
+     * @see #valueOf(long, StringConverter)
+     */
+    public T valueOfCorrected(long mask, StringConverter<T> converter) {
+        return valueOf(correct(mask), converter);
+    }
+
+    /**
+     * Validates the values of many rows at once, in parallel.
+     * <p>
+     * <p>The value function is called from pool threads, so it must not touch anything
+     * that is only safe on the JavaFX Application Thread. Pass a snapshot of the rows
+     * (or of their values) if they may change while this runs.
+     *
+     * @param rows  the rows to validate.
+     * @param value extracts the cell value from a row.
+     * @return the indices of the rows whose values break a rule, in ascending order.
+     */
+    public <S> int[] validateAll(List<S> rows, Function<? super S, ? extends T> value) {
+        return validateAll(rows, value, null);
+    }
+
+    /**
+     * Validates the values of many rows at once, in parallel, reading them with the given
+     * converter. The converter is called from pool threads too.
+     *
+     * @see #validateAll(List, Function)
+     * @see #maskOf(Object, StringConverter)
+     */
+    public <S> int[] validateAll(List<S> rows, Function<? super S, ? extends T> value, StringConverter<T> converter) {
+        final List<S> list = rows instanceof RandomAccess ? rows : new ArrayList<>(rows);
+        return IntStream.range(0, list.size())
+                .parallel()
+                .filter(i -> !isValid(maskOf(value.apply(list.get(i)), converter)))
+                .toArray();
+    }
+
+    private static long bit(int index) {
+        return 1L << index;
+    }
+
+
+    /***************************************************************************
+     *                                                                         *
+     * Builder                                                                 *
+     *                                                                         *
+     **************************************************************************/
+
+    /**
+     * Collects rules until they are {@link #compile() compiled}.
+     */
+    public static final class Builder<T> {
+
+        private final List<T> options;
+
+        private final Map<T, Integer> indices = new HashMap<>();
+
+        private final long[] requires;
+
+        private final long[] excludes;
+
+        private Builder(List<T> options) {
+            if (options.size() > MAX_OPTIONS) {
+                throw new IllegalArgumentException(
+                        "At most " + MAX_OPTIONS + " options are supported, got " + options.size() + ".");
+            }
+            this.options = Collections.unmodifiableList(new ArrayList<>(options));
+            for (int i = 0; i < this.options.size(); i++) {
+                if (indices.put(this.options.get(i), i) != null) {
+                    throw new IllegalArgumentException("Duplicate option \"" + this.options.get(i) + "\".");
+                }
+            }
+            this.requires = new long[this.options.size()];
+            this.excludes = new long[this.options.size()];
+        }
+
+        /**
+         * Declares that {@code option} and {@code other} can't be checked at the same time.
+         * Checking either of them unchecks the other.
+         */
+        public Builder<T> excludes(T option, T other) {
+            int a = index(option);
+            int b = index(other);
+            if (a == b) {
+                throw new IllegalArgumentException("\"" + option + "\" can't exclude itself.");
+            }
+            excludes[a] |= bit(b);
+            excludes[b] |= bit(a);
+            return this;
+        }
+
+        /**
+         * Declares that {@code option} can only be checked if {@code requirement} is, too.
+         * Checking {@code option} checks {@code requirement}; unchecking {@code requirement}
+         * unchecks {@code option}.
+         */
+        public Builder<T> requires(T option, T requirement) {
+            int a = index(option);
+            int b = index(requirement);
+            if (a != b) {
+                requires[a] |= bit(b);
+            }
+            return this;
+        }
+
+        /**
+         * Precomputes the mask tables.
+         *
+         * @throws IllegalArgumentException if some option can never be checked without
+         *                                  breaking a rule.
+         */
+        public SelectionRules<T> compile() {
+            return new SelectionRules<>(options, indices, requires.clone(), excludes.clone());
+        }
+
+        private int index(T option) {
+            Integer index = indices.get(option);
+            if (index == null) {
+                throw new IllegalArgumentException("\"" + option + "\" is not one of the options " + options + ".");
+            }
+            return index;
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package customtablecell;
+
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Makes a {@link TableView} with many {@link CheckComboBoxTableCell} columns only lay out
+ * and update the cells of the columns that can be seen.
+ * <p>
+ * <p>Installing the mode gives the table a fixed cell size, which lets the table's row skin
+ * leave the cells of columns scrolled out of view out of layout and out of the scene graph.
+ * On top of that, the mode follows the horizontal scroll position and tells the cells which
+ * columns are in view; a CheckComboBoxTableCell in a column out of view skips converting
+ * and showing its item, and catches up once its column is scrolled into view.
+ * <p>
+ * <p>It does not change how many cells there are: the row skin still creates one cell for
+ * every visible leaf column of every row, whether that column is in view or not. A
+ * CheckComboBoxTableCell only builds its CheckComboBox when editing starts, so the cells
+ * out of view stay small.
+ * <p>
+ * <p>Columns just outside the viewport (within {@link #OVERSCAN} pixels) count as visible,
+ * so they are ready when scrolling starts.
+ */
+public final class WideTableMode {
+
+    /**
+     * Pixels on either side of the viewport that still count as visible.
+     */
+    public static final double OVERSCAN = 200;
+
+    private static final String PROPERTY_KEY = WideTableMode.class.getName();
+
+    /***************************************************************************
+     *                                                                         *
+     * Static API                                                              *
+     *                                                                         *
+     **************************************************************************/
+
+    /**
+     * Turns on wide-table mode for the given table.
+     *
+     * @param tableView     the table.
+     * @param fixedCellSize the height of every row, used if the table doesn't have a
+     *                      fixed cell size yet.
+     * @return the mode.
+     */
+    public static WideTableMode install(TableView<?> tableView, double fixedCellSize) {
+        WideTableMode mode = of(tableView);
+        if (mode == null) {
+            if (tableView.getFixedCellSize() <= 0) {
+                tableView.setFixedCellSize(fixedCellSize);
+            }
+            mode = new WideTableMode(tableView);
+            tableView.getProperties().put(PROPERTY_KEY, mode);
+        }
+        return mode;
+    }
+
+    /**
+     * Returns the wide-table mode of the given table, or null if it isn't installed.
+     */
+    public static WideTableMode of(TableView<?> tableView) {
+        return tableView == null ? null : (WideTableMode) tableView.getProperties().get(PROPERTY_KEY);
+    }
+
+    /**
+     * Returns the table's horizontal scroll bar, or null until the table's skin has made one.
+     */
+    public static ScrollBar findHorizontalBar(TableView<?> tableView) {
+        for (Node node : tableView.lookupAll(".scroll-bar")) {
+            if (node instanceof ScrollBar && ((ScrollBar) node).getOrientation() == Orientation.HORIZONTAL) {
+                return (ScrollBar) node;
+            }
+        }
+        return null;
+    }
+
+
+    /***************************************************************************
+     *                                                                         *
+     * Fields                                                                  *
+     *                                                                         *
+     **************************************************************************/
+
+    private final TableView<?> tableView;
+
+    private ScrollBar horizontalBar;
+
+    private final Set<TableColumn<?, ?>> visibleColumns = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private final Map<TableColumn<?, ?>, Set<CheckComboBoxTableCell<?, ?>>> deferredCells = new IdentityHashMap<>();
+
+    private final List<TableColumn<?, ?>> observedColumns = new ArrayList<>();
+
+    private boolean valid;
+
+    private long skippedUpdates;
+
+    private long caughtUpUpdates;
+
+    private final InvalidationListener invalidationListener = this::invalidate;
+
+
+    /***************************************************************************
+     *                                                                         *
+     * Constructors                                                            *
+     *                                                                         *
+     **************************************************************************/
+
+    private WideTableMode(TableView<?> tableView) {
+        this.tableView = tableView;
+        tableView.widthProperty().addListener(invalidationListener);
+        tableView.skinProperty().addListener(observable -> {
+            //A new skin comes with a new scroll bar
+            if (horizontalBar != null) {
+                horizontalBar.valueProperty().removeListener(invalidationListener);
+                horizontalBar = null;
+            }
+            valid = false;
+            validate();
+        });
+        tableView.getVisibleLeafColumns().addListener((InvalidationListener) observable -> {
+            observeColumnWidths();
+            invalidate(null);
+        });
+        observeColumnWidths();
+    }
+
+
+    /***************************************************************************
+     *                                                                         *
+     * Public API                                                              *
+     *                                                                         *
+     **************************************************************************/
+
+    /**
+     * Returns true if the given column is in view, or close to it.
+     */
+    public boolean isVisible(TableColumn<?, ?> column) {
+        validate();
+        //Until the table has been laid out, there is nothing to go by
+        return horizontalBar == null || visibleColumns.contains(column);
+    }
+
+    /**
+     * Returns how many columns are currently considered visible.
+     */
+    public int getVisibleColumnCount() {
+        validate();
+        return horizontalBar == null ? tableView.getVisibleLeafColumns().size() : visibleColumns.size();
+    }
+
+    /**
+     * Returns how many updates cells skipped because their column was out of view.
+     */
+    public long getSkippedUpdateCount() {
+        return skippedUpdates;
+    }
+
+    /**
+     * Returns how many cells caught up on a skipped update when their column came into view.
+     * A cell that skipped several updates catches up once.
+     */
+    public long getCaughtUpUpdateCount() {
+        return caughtUpUpdates;
+    }
+
+    /**
+     * Sets the skipped and caught-up update counts back to zero.
+     */
+    public void resetUpdateCounts() {
+        skippedUpdates = 0;
+        caughtUpUpdates = 0;
+    }
+
+
+    /***************************************************************************
+     *                                                                         *
+     * Package API, for the cells                                              *
+     *                                                                         *
+     **************************************************************************/
+
+    /**
+     * Remembers a cell that skipped its update, so it can catch up when its column comes
+     * into view. Cells are held weakly.
+     */
+    void defer(CheckComboBoxTableCell<?, ?> cell) {
+        skippedUpdates++;
+        deferredCells.computeIfAbsent(cell.getTableColumn(),
+                column -> Collections.newSetFromMap(new WeakHashMap<>())).add(cell);
+    }
+
+
+    /***************************************************************************
+     *                                                                         *
+     * Private implementation                                                  *
+     *                                                                         *
+     **************************************************************************/
+
+    private void observeColumnWidths() {
+        for (TableColumn<?, ?> column : observedColumns) {
+            column.widthProperty().removeListener(invalidationListener);
+        }
+        observedColumns.clear();
+        for (TableColumn<?, ?> column : tableView.getVisibleLeafColumns()) {
+            column.widthProperty().addListener(invalidationListener);
+            observedColumns.add(column);
+        }
+    }
+
+    private void invalidate(Observable observable) {
+        if (!valid) {
+            return;
+        }
+        valid = false;
+        //Work out right away (rather than on the next query) which cells have to catch up
+        validate();
+    }
+
+    private void validate() {
+        if (valid) {
+            return;
+        }
+        valid = true;
+
+        if (horizontalBar == null) {
+            horizontalBar = findHorizontalBar(tableView);
+            if (horizontalBar == null) {
+                valid = false;
+                return;
+            }
+            horizontalBar.valueProperty().addListener(invalidationListener);
+        }
+
+        double from = horizontalBar.getValue() - OVERSCAN;
+        double to = horizontalBar.getValue() + tableView.getWidth() + OVERSCAN;
+        double x = 0;
+        List<TableColumn<?, ?>> nowVisible = new ArrayList<>();
+        for (TableColumn<?, ?> column : tableView.getVisibleLeafColumns()) {
+            double width = column.getWidth();
+            if (x + width >= from && x <= to) {
+                nowVisible.add(column);
+            }
+            x += width;
+        }
+
+        visibleColumns.clear();
+        visibleColumns.addAll(nowVisible);
+        for (TableColumn<?, ?> column : nowVisible) {
+            Set<CheckComboBoxTableCell<?, ?>> cells = deferredCells.remove(column);
+            if (cells != null) {
+                for (CheckComboBoxTableCell<?, ?> cell : new ArrayList<>(cells)) {
+                    cell.updateDeferred();
+                    caughtUpUpdates++;
+                }
+            }
+        }
+    }
+}
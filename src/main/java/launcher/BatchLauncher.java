@@ -0,0 +1,239 @@
+package launcher;
+
+import controller.ConditionCatalog;
+import customtablecell.SelectionRules;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Edits the conditions of POs in a file, without the UI.
+ * <p>
+ * Rows are read from a file with one PO per line: the PO number, a tab, and its condition,
+ * written the same way the table stores it. Lines without a tab, and comments starting with
+ * {@code #}, are copied through untouched; a row whose PO number isn't a number fails the
+ * run.
+ * <p>
+ * The edits are applied to every row that matches the query, in the order they are given,
+ * with the same option catalog and rules as the table ({@link ConditionCatalog}): adding
+ * "Cut" also adds "Open", adding "Ok" removes "Cut", and so on. The result is corrected and
+ * written the way the table's editors commit it ({@link SelectionRules#valueOfCorrected}),
+ * so a row that broke the rules before comes out fixed. Rows that end up with the
+ * conditions they had are left as they were. Rows are processed in parallel; the output
+ * keeps their order.
+ * <pre>
+ * java launcher.BatchLauncher --in=rows.tsv --out=result.tsv [query] edit...
+ *
+ * query:  --with=Open,Cut       only rows that have all of these
+ *         --without=Ok          only rows that have none of these
+ * edits:  --add=Cut             check conditions
+ *         --remove=Ok           uncheck conditions
+ *         --replace=Open        replace all conditions
+ * </pre>
+ */
+public class BatchLauncher {
+
+    private static final char SEPARATOR = '\t';
+
+    private final SelectionRules<String> rules = ConditionCatalog.RULES;
+
+    private long with;
+
+    private long without;
+
+    private final List<Edit> edits = new ArrayList<>();
+
+    private Path in;
+
+    private Path out;
+
+    /**
+     * One edit of the conditions of a row.
+     */
+    private interface Edit {
+        long apply(long mask);
+    }
+
+    public static void main(String[] args) {
+        BatchLauncher batch = new BatchLauncher();
+        try {
+            batch.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: java launcher.BatchLauncher --in=rows.tsv --out=result.tsv"
+                    + " [--with=a,b] [--without=c] [--add=a] [--remove=b] [--replace=a,c]...");
+            System.exit(2);
+        }
+        try {
+            int changed = batch.run();
+            System.err.println(changed + " rows changed.");
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Reads the options.
+     *
+     * @throws IllegalArgumentException if they aren't complete or make no sense.
+     */
+    void parse(String[] args) {
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            String name = arg.substring(2, equals);
+            String value = arg.substring(equals + 1);
+            switch (name) {
+                case "in":
+                    in = Paths.get(value);
+                    break;
+                case "out":
+                    out = Paths.get(value);
+                    break;
+                case "with":
+                    with |= conditions(value);
+                    break;
+                case "without":
+                    without |= conditions(value);
+                    break;
+                case "add": {
+                    long mask = conditions(value);
+                    edits.add(current -> {
+                        for (long rest = mask; rest != 0; rest &= rest - 1) {
+                            current = rules.check(current, Long.numberOfTrailingZeros(rest));
+                        }
+                        return current;
+                    });
+                    break;
+                }
+                case "remove": {
+                    long mask = conditions(value);
+                    edits.add(current -> {
+                        for (long rest = mask; rest != 0; rest &= rest - 1) {
+                            current = rules.uncheck(current, Long.numberOfTrailingZeros(rest));
+                        }
+                        return current;
+                    });
+                    break;
+                }
+                case "replace": {
+                    long mask = rules.correct(conditions(value));
+                    edits.add(current -> mask);
+                    break;
+                }
+                default:
+                    throw new IllegalArgumentException("Unknown option: --" + name);
+            }
+        }
+        if (in == null || out == null) {
+            throw new IllegalArgumentException("Both --in and --out are required.");
+        }
+        if (edits.isEmpty()) {
+            throw new IllegalArgumentException("Nothing to do: give at least one --add, --remove or --replace.");
+        }
+    }
+
+    /**
+     * Reads a list of conditions as it would be written in a cell, and checks they all exist.
+     */
+    private long conditions(String value) {
+        long mask = rules.maskOf(value, ConditionCatalog.CONVERTER);
+        for (String condition : ConditionCatalog.CONVERTER.decode(value)) {
+            if (rules.indexOf(condition) < 0) {
+                throw new IllegalArgumentException("Unknown condition \"" + condition + "\"; the conditions are "
+                        + rules.getOptions() + ".");
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Edits the rows of the input file into the output file.
+     *
+     * @return how many rows were changed.
+     * @throws IllegalArgumentException if a row's PO number isn't a number.
+     */
+    int run() throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(in, StandardCharsets.UTF_8)) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                lines.add(line);
+            }
+        }
+
+        //A malformed row comes out as null, so the first one can be reported in order
+        String[] results = new String[lines.size()];
+        AtomicInteger changed = new AtomicInteger();
+        IntStream.range(0, lines.size()).parallel().forEach(i -> {
+            String line = lines.get(i);
+            String result = isRow(line) && !isPoNumber(line.substring(0, line.indexOf(SEPARATOR))) ? null : apply(line);
+            if (result != line) {
+                changed.incrementAndGet();
+            }
+            results[i] = result;
+        });
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                String poNumber = lines.get(i).substring(0, lines.get(i).indexOf(SEPARATOR));
+                throw new IllegalArgumentException("Line " + (i + 1) + ": \"" + poNumber + "\" is not a PO number.");
+            }
+        }
+
+        try (BufferedWriter writer = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+            for (String result : results) {
+                writer.write(result);
+                writer.newLine();
+            }
+        }
+        return changed.get();
+    }
+
+    /**
+     * Applies the edits to one line, if it is a row that matches the query.
+     *
+     * @return the line as it is written out; the same instance if it wasn't changed.
+     */
+    String apply(String line) {
+        if (!isRow(line)) {
+            return line;
+        }
+        int tab = line.indexOf(SEPARATOR);
+        long before = rules.maskOf(line.substring(tab + 1), ConditionCatalog.CONVERTER);
+        if ((before & with) != with || (before & without) != 0) {
+            return line;
+        }
+        long after = before;
+        for (Edit edit : edits) {
+            after = edit.apply(after);
+        }
+        if (rules.correct(after) == before) {
+            return line;
+        }
+        return line.substring(0, tab + 1) + rules.valueOfCorrected(after, ConditionCatalog.CONVERTER);
+    }
+
+    private static boolean isRow(String line) {
+        return line.indexOf(SEPARATOR) >= 0 && !line.startsWith("#");
+    }
+
+    private static boolean isPoNumber(String field) {
+        try {
+            Integer.parseInt(field.trim());
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
@@ -1,21 +1,49 @@
 package launcher;
 
+import controller.Controller;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
+import replication.ReplicationHub;
 
 public class Launcher extends Application {
 
+    private Controller controller;
+
     @Override
     public void start(Stage primaryStage) throws Exception{
-        Parent root = FXMLLoader.load(getClass().getResource("../view/layout.fxml"));
+        FXMLLoader loader = new FXMLLoader(getClass().getResource("../view/layout.fxml"));
+        Parent root = loader.load();
+        controller = loader.getController();
+
+        //Run with -Dreplication.hub=host:port to share edits through a replication.ReplicationHub;
+        //the host defaults to localhost and the port to ReplicationHub.DEFAULT_PORT
+        String hub = System.getProperty("replication.hub");
+        if (hub != null) {
+            int colon = hub.lastIndexOf(':');
+            String host = colon < 0 ? hub : hub.substring(0, colon);
+            String port = colon < 0 ? "" : hub.substring(colon + 1);
+            try {
+                controller.replicate(host.isEmpty() ? "localhost" : host,
+                        port.isEmpty() ? ReplicationHub.DEFAULT_PORT : Integer.parseInt(port));
+            } catch (NumberFormatException e) {
+                System.err.println("\"" + hub + "\" is no replication hub address (host:port); carrying on without"
+                        + " replication.");
+            }
+        }
+
         primaryStage.setTitle("Testing Editable CheckComboBox");
         primaryStage.setScene(new Scene(root));
         primaryStage.show();
     }
 
+    @Override
+    public void stop() {
+        controller.close();
+    }
+
 
     public static void main(String[] args) {
         launch(args);
@@ -0,0 +1,220 @@
+package model;
+
+import javafx.collections.ModifiableObservableListBase;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * An observable list of rows that each have a unique key (like a PO number), which can be
+ * {@link #reconcile(Collection) reconciled} with a fresh copy of the rows instead of being
+ * replaced wholesale with {@code setAll}.
+ * <p>
+ * Reconciling keeps the row objects that are already in the list, copies the fresh values
+ * into them, and only fires the adds, removes and moves that are actually needed. A
+ * {@code TableView} showing the list therefore keeps its cells, selection and edit state,
+ * and a refresh where nothing moved fires no list change at all.
+ *
+ * @param <K> The type of the keys.
+ * @param <S> The type of the rows.
+ */
+public class KeyedObservableList<K, S> extends ModifiableObservableListBase<S> {
+
+    private final Function<? super S, ? extends K> keyFunction;
+
+    private final BiConsumer<? super S, ? super S> updater;
+
+    private final ArrayList<S> rows = new ArrayList<>();
+
+    private final Map<K, S> rowsByKey = new HashMap<>();
+
+    /**
+     * @param keyFunction returns the key of a row. The key of a row must not change while
+     *                    the row is in the list.
+     * @param updater     copies the values of a fresh row (second argument) into the row
+     *                    with the same key that is already in the list (first argument).
+     */
+    public KeyedObservableList(Function<? super S, ? extends K> keyFunction,
+                               BiConsumer<? super S, ? super S> updater) {
+        this.keyFunction = keyFunction;
+        this.updater = updater;
+    }
+
+    /**
+     * Returns the row with the given key, or null if there is none.
+     */
+    public S getByKey(K key) {
+        return rowsByKey.get(key);
+    }
+
+    /**
+     * Makes this list look like the given rows, matching rows up by key.
+     * <ul>
+     * <li>Rows whose key is already in the list are updated in place, and stay in the list.</li>
+     * <li>Rows whose key isn't in the list yet are added.</li>
+     * <li>Rows whose key isn't among the given rows are removed.</li>
+     * <li>Rows whose order changed are moved, keeping the longest run of rows that are
+     * already in order where they are.</li>
+     * </ul>
+     * All of it is reported as a single list change, or none if only values changed.
+     *
+     * @param fresh the rows the list should contain, in order.
+     * @throws IllegalArgumentException if two of the given rows have the same key.
+     */
+    public void reconcile(Collection<? extends S> fresh) {
+        final int size = rows.size();
+        final List<? extends S> freshRows = fresh instanceof List ? (List<? extends S>) fresh : new ArrayList<>(fresh);
+        final int freshSize = freshRows.size();
+
+        Map<K, Integer> freshIndices = new HashMap<>(freshSize * 4 / 3 + 1);
+        for (int j = 0; j < freshSize; j++) {
+            K key = keyFunction.apply(freshRows.get(j));
+            if (freshIndices.put(key, j) != null) {
+                throw new IllegalArgumentException("Duplicate key " + key + ".");
+            }
+        }
+
+        //Where each row that stays ends up; -1 for the rows that go
+        int[] target = new int[size];
+        int survivors = 0;
+        boolean inOrder = true;
+        int last = -1;
+        for (int i = 0; i < size; i++) {
+            Integer j = freshIndices.get(keyFunction.apply(rows.get(i)));
+            target[i] = j == null ? -1 : j;
+            if (j != null) {
+                survivors++;
+                inOrder &= j > last;
+                last = j;
+            }
+        }
+
+        //The rows that stay in place; the others that stay are moved (removed and added again)
+        boolean[] stays = inOrder ? null : longestIncreasingRun(target, survivors);
+        boolean[] added = new boolean[freshSize];
+        List<S> result = new ArrayList<>(freshSize);
+        boolean structural = survivors != size || survivors != freshSize || !inOrder;
+        for (int j = 0; j < freshSize; j++) {
+            S row = freshRows.get(j);
+            S existing = rowsByKey.get(keyFunction.apply(row));
+            if (existing != null) {
+                updater.accept(existing, row);
+                result.add(existing);
+            } else {
+                result.add(row);
+                added[j] = true;
+            }
+        }
+        if (stays != null) {
+            for (int i = 0; i < size; i++) {
+                if (target[i] >= 0 && !stays[i]) {
+                    added[target[i]] = true;
+                }
+            }
+        }
+        if (!structural) {
+            return;
+        }
+
+        beginChange();
+        try {
+            //From the back, so that the indices of the rows still to remove don't shift
+            for (int i = size - 1; i >= 0; i--) {
+                if (target[i] < 0 || (stays != null && !stays[i])) {
+                    nextRemove(i, rows.get(i));
+                }
+            }
+            for (int j = 0; j < freshSize; j++) {
+                if (added[j]) {
+                    nextAdd(j, j + 1);
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                if (target[i] < 0) {
+                    rowsByKey.remove(keyFunction.apply(rows.get(i)));
+                }
+            }
+            for (int j = 0; j < freshSize; j++) {
+                if (added[j]) {
+                    rowsByKey.put(keyFunction.apply(result.get(j)), result.get(j));
+                }
+            }
+            rows.clear();
+            rows.addAll(result);
+        } finally {
+            endChange();
+        }
+    }
+
+    /**
+     * Finds the longest run of rows whose targets are increasing, skipping rows that go (-1).
+     * O(n log n).
+     */
+    private static boolean[] longestIncreasingRun(int[] target, int survivors) {
+        int[] tails = new int[survivors];
+        int[] previous = new int[target.length];
+        int length = 0;
+        for (int i = 0; i < target.length; i++) {
+            if (target[i] < 0) {
+                continue;
+            }
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (target[tails[middle]] < target[i]) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+        boolean[] stays = new boolean[target.length];
+        for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = previous[i]) {
+            stays[i] = true;
+        }
+        return stays;
+    }
+
+
+    @Override
+    public S get(int index) {
+        return rows.get(index);
+    }
+
+    @Override
+    public int size() {
+        return rows.size();
+    }
+
+    @Override
+    protected void doAdd(int index, S element) {
+        rows.add(index, element);
+        rowsByKey.put(keyFunction.apply(element), element);
+    }
+
+    @Override
+    protected S doSet(int index, S element) {
+        S old = rows.set(index, element);
+        rowsByKey.remove(keyFunction.apply(old));
+        rowsByKey.put(keyFunction.apply(element), element);
+        return old;
+    }
+
+    @Override
+    protected S doRemove(int index) {
+        S old = rows.remove(index);
+        rowsByKey.remove(keyFunction.apply(old));
+        return old;
+    }
+}
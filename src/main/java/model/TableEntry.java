@@ -20,6 +20,14 @@ public class TableEntry {
         this.poNumber.set(poNumber);
     }
 
+    /**
+     * Copies the values of another entry for the same PO into this one.
+     * Only the properties that actually differ fire change events.
+     */
+    public void updateFrom(TableEntry other) {
+        setCondition(other.getCondition());
+    }
+
     public int getPoNumber() {
         return poNumber.get();
     }
@@ -0,0 +1,94 @@
+package replication;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * One committed condition edit as it travels between clients: which row, what is checked
+ * now, and which version of the row that is.
+ * <p>
+ * On the wire a delta is always {@link #SIZE} bytes, so no framing is needed.
+ */
+public final class ConditionDelta {
+
+    /**
+     * Bytes per delta on the wire.
+     */
+    public static final int SIZE = Integer.BYTES + Long.BYTES + Long.BYTES + Integer.BYTES;
+
+    private final int rowId;
+
+    private final long mask;
+
+    private final long version;
+
+    private final int origin;
+
+    /**
+     * @param rowId   the key of the row (the PO number).
+     * @param mask    the checked options, as a {@link customtablecell.SelectionRules} mask.
+     * @param version the version of the row this edit produced.
+     * @param origin  the client that made the edit; breaks ties between equal versions.
+     */
+    public ConditionDelta(int rowId, long mask, long version, int origin) {
+        this.rowId = rowId;
+        this.mask = mask;
+        this.version = version;
+        this.origin = origin;
+    }
+
+    public int getRowId() {
+        return rowId;
+    }
+
+    public long getMask() {
+        return mask;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int getOrigin() {
+        return origin;
+    }
+
+    /**
+     * Last writer wins: the higher version wins, and between equal versions the higher origin.
+     * Every client and the hub apply the same order, so they all end up agreeing.
+     */
+    public boolean supersedes(ConditionDelta other) {
+        if (other == null) {
+            return true;
+        }
+        if (version != other.version) {
+            return version > other.version;
+        }
+        return origin > other.origin;
+    }
+
+    /**
+     * Returns whichever of the two deltas wins.
+     */
+    static ConditionDelta latest(ConditionDelta a, ConditionDelta b) {
+        return b.supersedes(a) ? b : a;
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeInt(rowId);
+        out.writeLong(mask);
+        out.writeLong(version);
+        out.writeInt(origin);
+    }
+
+    static ConditionDelta read(DataInput in) throws IOException {
+        return new ConditionDelta(in.readInt(), in.readLong(), in.readLong(), in.readInt());
+    }
+
+    @Override
+    public String toString() {
+        return "ConditionDelta{rowId=" + rowId + ", mask=" + Long.toBinaryString(mask)
+                + ", version=" + version + ", origin=" + origin + '}';
+    }
+}
@@ -0,0 +1,63 @@
+package replication;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Writes deltas to a socket on its own thread. Whatever piled up while the previous batch
+ * was being written goes out as the next batch, with a single flush, so senders never wait
+ * on the network and many edits share one packet.
+ */
+class DeltaWriter extends Thread {
+
+    /**
+     * Deltas written per flush, at most.
+     */
+    private static final int MAX_BATCH = 512;
+
+    private final BlockingQueue<ConditionDelta> queue = new LinkedBlockingQueue<>();
+
+    private final DataOutputStream out;
+
+    private final Runnable onFailure;
+
+    DeltaWriter(String name, OutputStream out, Runnable onFailure) {
+        super(name);
+        setDaemon(true);
+        this.out = new DataOutputStream(new BufferedOutputStream(out, MAX_BATCH * ConditionDelta.SIZE));
+        this.onFailure = onFailure;
+    }
+
+    /**
+     * Queues a delta; never blocks.
+     */
+    void send(ConditionDelta delta) {
+        queue.add(delta);
+    }
+
+    @Override
+    public void run() {
+        List<ConditionDelta> batch = new ArrayList<>(MAX_BATCH);
+        try {
+            while (!isInterrupted()) {
+                batch.add(queue.take());
+                queue.drainTo(batch, MAX_BATCH - 1);
+                for (ConditionDelta delta : batch) {
+                    delta.write(out);
+                }
+                out.flush();
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            //Closed
+        } catch (IOException e) {
+            onFailure.run();
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package replication;
+
+import customtablecell.SelectionRules;
+import javafx.application.Platform;
+import javafx.event.EventHandler;
+import javafx.scene.control.TableColumn;
+import javafx.util.StringConverter;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Shares the condition edits of one TableView with other clients through a
+ * {@link ReplicationHub}.
+ * <p>
+ * Every edit committed in an {@link #attach(TableColumn) attached} column is sent as a
+ * {@link ConditionDelta}. Deltas from other clients are collected off the JavaFX Application
+ * Thread; when many arrive for the same row only the winner is kept, and they are all
+ * applied together in one pass on the application thread. A delta is only applied if it
+ * supersedes the version this client already has of the row (last writer wins).
+ * <p>
+ * The constructor connects, so it blocks until the hub answers; it may be called on any
+ * thread. All other methods except {@link #close()} must be called on the JavaFX Application
+ * Thread. A connection that fails later ends the reader thread, with the failure passed to
+ * its uncaught exception handler.
+ *
+ * @param <S> The type of the TableView's items.
+ * @param <T> The type of the condition column.
+ */
+public class ReplicationClient<S, T> implements Closeable {
+
+    /**
+     * How long connecting may take before the hub counts as unreachable.
+     */
+    private static final int CONNECT_TIMEOUT_MILLIS = 5000;
+
+    private final SelectionRules<T> catalog;
+
+    private final StringConverter<T> converter;
+
+    private final ToIntFunction<? super S> rowId;
+
+    private final IntFunction<? extends S> rowLookup;
+
+    private final BiConsumer<? super S, ? super T> setter;
+
+    private final int origin = ThreadLocalRandom.current().nextInt();
+
+    private final Socket socket;
+
+    private final DeltaWriter writer;
+
+    private final Thread reader;
+
+    /**
+     * The latest known version of every row. Application thread only.
+     */
+    private final Map<Integer, ConditionDelta> versions = new HashMap<>();
+
+    /**
+     * Deltas received but not applied yet, coalesced per row.
+     */
+    private final Map<Integer, ConditionDelta> incoming = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean applyScheduled = new AtomicBoolean();
+
+    private final EventHandler<TableColumn.CellEditEvent<S, T>> commitHandler =
+            event -> publish(event.getRowValue(), event.getNewValue());
+
+    private final List<TableColumn<S, T>> columns = new ArrayList<>();
+
+    /**
+     * Connects to a hub.
+     *
+     * @param host      the host the hub runs on.
+     * @param port      the port the hub listens on.
+     * @param catalog   the options of the condition column, used to turn values into masks
+     *                  and back.
+     * @param converter the converter the column's cells write their values with, or null
+     *                  for {@link customtablecell.MultiValueStringConverter}'s way.
+     * @param rowId     returns the key of a row.
+     * @param rowLookup returns the row with a key, or null if this client doesn't have it.
+     * @param setter    writes a value to the condition of a row.
+     * @throws IOException if the hub can't be reached.
+     */
+    public ReplicationClient(String host, int port,
+                             SelectionRules<T> catalog,
+                             StringConverter<T> converter,
+                             ToIntFunction<? super S> rowId,
+                             IntFunction<? extends S> rowLookup,
+                             BiConsumer<? super S, ? super T> setter) throws IOException {
+        this.catalog = catalog;
+        this.converter = converter;
+        this.rowId = rowId;
+        this.rowLookup = rowLookup;
+        this.setter = setter;
+        this.socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MILLIS);
+            socket.setTcpNoDelay(true);
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+        this.writer = new DeltaWriter("replication-client-writer", socket.getOutputStream(), this::closeQuietly);
+        this.reader = new Thread(this::read, "replication-client-reader");
+        reader.setDaemon(true);
+        writer.start();
+        reader.start();
+    }
+
+    /**
+     * Publishes every edit committed in the given column.
+     */
+    public void attach(TableColumn<S, T> column) {
+        column.addEventHandler(TableColumn.editCommitEvent(), commitHandler);
+        columns.add(column);
+    }
+
+    /**
+     * Publishes a new value for a row, as one more version of it.
+     */
+    public void publish(S row, T value) {
+        int id = rowId.applyAsInt(row);
+        ConditionDelta known = versions.get(id);
+        ConditionDelta delta = new ConditionDelta(id, catalog.maskOf(value, converter),
+                known == null ? 1 : known.getVersion() + 1, origin);
+        versions.put(id, delta);
+        writer.send(delta);
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (TableColumn<S, T> column : columns) {
+            column.removeEventHandler(TableColumn.editCommitEvent(), commitHandler);
+        }
+        columns.clear();
+        writer.interrupt();
+        socket.close();
+    }
+
+    private void read() {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+            while (true) {
+                ConditionDelta delta = ConditionDelta.read(in);
+                incoming.merge(delta.getRowId(), delta, ConditionDelta::latest);
+                if (applyScheduled.compareAndSet(false, true)) {
+                    Platform.runLater(this::applyIncoming);
+                }
+            }
+        } catch (EOFException e) {
+            //The hub went away
+        } catch (IOException e) {
+            if (!socket.isClosed()) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Applies everything that arrived since the last time, in one go.
+     */
+    private void applyIncoming() {
+        applyScheduled.set(false);
+        for (Integer id : new ArrayList<>(incoming.keySet())) {
+            ConditionDelta delta = incoming.remove(id);
+            if (delta == null || !delta.supersedes(versions.get(id))) {
+                continue;
+            }
+            versions.put(id, delta);
+            S row = rowLookup.apply(id);
+            if (row != null) {
+                setter.accept(row, catalog.valueOf(delta.getMask(), converter));
+            }
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            //Nothing left to do with it
+        }
+    }
+}
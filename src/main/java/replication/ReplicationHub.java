@@ -0,0 +1,167 @@
+package replication;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A small reference hub that relays condition deltas between clients.
+ * <p>
+ * The hub keeps the winning delta of every row. A client that connects first gets all of
+ * them, and from then on every delta that wins is passed on to the other clients. Deltas
+ * that lose against what the hub already has are dropped, so stale edits stop here.
+ * <p>
+ * Run it on its own with {@code java replication.ReplicationHub [port]}, or start one in
+ * process (on port 0, for any free port) for tests. Connections that fail are dropped, and
+ * the failure is passed to the uncaught exception handler of their thread.
+ */
+public class ReplicationHub implements Closeable {
+
+    public static final int DEFAULT_PORT = 47800;
+
+    private final ServerSocket serverSocket;
+
+    private final Map<Integer, ConditionDelta> latest = new ConcurrentHashMap<>();
+
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+
+    private final Thread acceptor;
+
+    /**
+     * Opens the hub on the loopback interface.
+     *
+     * @param port the port to listen on, or 0 for any free port.
+     */
+    public ReplicationHub(int port) throws IOException {
+        serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        acceptor = new Thread(this::accept, "replication-hub-acceptor");
+        acceptor.setDaemon(true);
+    }
+
+    /**
+     * Starts accepting clients.
+     */
+    public ReplicationHub start() {
+        acceptor.start();
+        return this;
+    }
+
+    /**
+     * Returns the port the hub listens on.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Returns the winning delta of a row so far, or null if no client has edited it.
+     */
+    public ConditionDelta getLatest(int rowId) {
+        return latest.get(rowId);
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Connection connection : connections) {
+            connection.close();
+        }
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Connection connection = new Connection(socket);
+                connections.add(connection);
+                //Bring the newcomer up to date before it hears about anything else
+                for (ConditionDelta delta : latest.values()) {
+                    connection.writer.send(delta);
+                }
+                connection.start();
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    //Report it, and carry on accepting the others
+                    Thread thread = Thread.currentThread();
+                    thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+                }
+            }
+        }
+    }
+
+    private void received(Connection from, ConditionDelta delta) {
+        if (latest.merge(delta.getRowId(), delta, ConditionDelta::latest) != delta) {
+            return;
+        }
+        for (Connection connection : connections) {
+            if (connection != from) {
+                connection.writer.send(delta);
+            }
+        }
+    }
+
+    private class Connection extends Thread {
+
+        private final Socket socket;
+
+        private final DeltaWriter writer;
+
+        Connection(Socket socket) throws IOException {
+            super("replication-hub-" + socket.getRemoteSocketAddress());
+            setDaemon(true);
+            this.socket = socket;
+            this.writer = new DeltaWriter(getName() + "-writer", socket.getOutputStream(), this::close);
+        }
+
+        @Override
+        public void start() {
+            writer.start();
+            super.start();
+        }
+
+        @Override
+        public void run() {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+                while (true) {
+                    received(this, ConditionDelta.read(in));
+                }
+            } catch (EOFException e) {
+                //The client left
+            } catch (IOException e) {
+                if (!socket.isClosed()) {
+                    throw new UncheckedIOException(e);
+                }
+            } finally {
+                close();
+            }
+        }
+
+        void close() {
+            connections.remove(this);
+            writer.interrupt();
+            try {
+                socket.close();
+            } catch (IOException e) {
+                //Nothing left to do with it
+            }
+        }
+    }
+
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        ReplicationHub hub = new ReplicationHub(port).start();
+        System.out.println("Replication hub listening on " + hub.getPort());
+        hub.acceptor.join();
+    }
+}
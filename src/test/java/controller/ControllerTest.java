@@ -0,0 +1,90 @@
+package controller;
+
+import javafx.fxml.FXMLLoader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import replication.ReplicationHub;
+import support.JavaFx;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+
+import static org.junit.Assert.assertNull;
+
+/**
+ * Replication as the application starts and stops it.
+ */
+public class ControllerTest {
+
+    private static final String HOST = InetAddress.getLoopbackAddress().getHostAddress();
+
+    private Controller controller;
+
+    private ReplicationHub hub;
+
+    @BeforeClass
+    public static void startJavaFx() {
+        JavaFx.start();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        controller = JavaFx.call(() -> {
+            FXMLLoader loader = new FXMLLoader(Controller.class.getResource("/view/layout.fxml"));
+            loader.load();
+            return loader.getController();
+        });
+        hub = new ReplicationHub(0).start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        JavaFx.run(controller::close);
+        hub.close();
+    }
+
+    @Test
+    public void anUnreachableHubDoesntStopTheApplication() throws Exception {
+        int port = freePort();
+        //Returns right away, without an exception
+        JavaFx.run(() -> controller.replicate(HOST, port));
+        JavaFx.run(() -> controller.replicate(HOST, -1));
+        waitForConnectors();
+        JavaFx.flush();
+        assertNull(controller.replication);
+    }
+
+    @Test
+    public void theHubIsConnectedToInTheBackground() throws Exception {
+        JavaFx.run(() -> controller.replicate(HOST, hub.getPort()));
+        JavaFx.waitFor("the connection", () -> controller.replication != null);
+
+        JavaFx.run(controller::close);
+        assertNull(controller.replication);
+    }
+
+    @Test
+    public void aConnectionMadeAfterTheWindowClosedIsClosedToo() throws Exception {
+        JavaFx.run(() -> {
+            controller.replicate(HOST, hub.getPort());
+            controller.close();
+        });
+        waitForConnectors();
+        JavaFx.flush();
+        assertNull(controller.replication);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void waitForConnectors() throws Exception {
+        JavaFx.waitFor("the connectors", () -> Thread.getAllStackTraces().keySet().stream()
+                .noneMatch(thread -> thread.getName().equals("replication-connector")));
+    }
+}
@@ -0,0 +1,126 @@
+package customtablecell;
+
+import controller.ConditionCatalog;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import model.TableEntry;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import support.JavaFx;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Measures how much a CheckComboBoxTableCell costs, over a table with many condition
+ * columns, with its properties left lazy and with all of them created (as every cell did
+ * before they were lazy).
+ * <p>
+ * Bytes are counted with the allocation counter of the current thread, which doesn't
+ * depend on when the garbage collector runs.
+ */
+public class CheckComboBoxTableCellFootprintTest {
+
+    private static final int COLUMNS = 150;
+
+    /**
+     * Roughly the rows a table shows at once, which is how many cells it makes per column.
+     */
+    private static final int ROWS = 40;
+
+    private static final int ROUNDS = 5;
+
+    @BeforeClass
+    public static void startJavaFx() {
+        JavaFx.start();
+    }
+
+    @Test
+    public void lazyPropertiesMakeCellsSmaller() throws Exception {
+        JavaFx.run(() -> {
+            TableView<TableEntry> tableView = createTable();
+
+            //The first round loads classes and warms up; of the others, the least counts, as
+            //whatever else the thread allocates now and then only ever adds to it
+            createCells(tableView, false);
+            createCells(tableView, true);
+            double lazy = Double.MAX_VALUE;
+            double eager = Double.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                lazy = Math.min(lazy, bytesPerCell(tableView, false));
+                eager = Math.min(eager, bytesPerCell(tableView, true));
+            }
+
+            System.out.printf("CheckComboBoxTableCell over %d columns x %d rows: %.0f bytes per cell with lazy"
+                    + " properties, %.0f with all properties created (%.0f saved)%n",
+                    COLUMNS, ROWS, lazy, eager, eager - lazy);
+            //Three properties (converter, checkComboBoxEditable, selectionRules) are at least 32 bytes each
+            assertTrue("lazy " + lazy + " vs eager " + eager, eager - lazy >= 3 * 32);
+        });
+    }
+
+    @Test
+    public void cellsShareTheColumnDefaults() throws Exception {
+        JavaFx.run(() -> {
+            MultiValueStringConverter converter = new MultiValueStringConverter();
+            CheckComboBoxTableCell<TableEntry, String> cell = new CheckComboBoxTableCell<>(converter,
+                    FXCollections.observableArrayList(ConditionCatalog.OPTIONS), ConditionCatalog.RULES);
+            assertSame(converter, cell.getConverter());
+            assertSame(ConditionCatalog.RULES, cell.getSelectionRules());
+
+            //Setting the default again doesn't need the property; asking for it hands out the default
+            cell.setConverter(converter);
+            assertSame(converter, cell.converterProperty().get());
+        });
+    }
+
+    private static TableView<TableEntry> createTable() {
+        ObservableList<String> options = FXCollections.observableArrayList(ConditionCatalog.OPTIONS);
+        TableView<TableEntry> tableView = new TableView<>();
+        for (int i = 0; i < COLUMNS; i++) {
+            TableColumn<TableEntry, String> column = new TableColumn<>("Condition " + i);
+            column.setCellFactory(CheckComboBoxTableCell.forTableColumn(ConditionCatalog.CONVERTER, options,
+                    ConditionCatalog.RULES));
+            tableView.getColumns().add(column);
+        }
+        return tableView;
+    }
+
+    private static double bytesPerCell(TableView<TableEntry> tableView, boolean eager) {
+        long before = allocatedBytes();
+        List<TableCell<TableEntry, ?>> cells = createCells(tableView, eager);
+        long allocated = allocatedBytes() - before;
+        return (double) allocated / cells.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<TableCell<TableEntry, ?>> createCells(TableView<TableEntry> tableView, boolean eager) {
+        List<TableCell<TableEntry, ?>> cells = new ArrayList<>(COLUMNS * ROWS);
+        for (TableColumn<TableEntry, ?> column : tableView.getColumns()) {
+            TableColumn<TableEntry, String> conditionColumn = (TableColumn<TableEntry, String>) column;
+            for (int row = 0; row < ROWS; row++) {
+                CheckComboBoxTableCell<TableEntry, String> cell =
+                        (CheckComboBoxTableCell<TableEntry, String>) conditionColumn.getCellFactory().call(conditionColumn);
+                if (eager) {
+                    cell.converterProperty();
+                    cell.checkComboBoxEditableProperty();
+                    cell.selectionRulesProperty();
+                }
+                cells.add(cell);
+            }
+        }
+        return cells;
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
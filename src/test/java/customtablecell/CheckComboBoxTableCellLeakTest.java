@@ -0,0 +1,90 @@
+package customtablecell;
+
+import controller.ConditionCatalog;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import model.TableEntry;
+import org.controlsfx.control.CheckComboBox;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import support.JavaFx;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * The editors of a column share its items list, which lives as long as the column; they must
+ * not be kept alive by it. This is what the soak run in {@code launcher.SoakLauncher} checks
+ * at scale.
+ */
+public class CheckComboBoxTableCellLeakTest {
+
+    private static final int EDITORS = 20;
+
+    @BeforeClass
+    public static void startJavaFx() {
+        JavaFx.start();
+    }
+
+    @Test
+    public void editorsAreNotKeptAliveByTheColumnsItems() throws Exception {
+        ObservableList<String> items = FXCollections.observableArrayList(ConditionCatalog.OPTIONS);
+        List<WeakReference<Object>> editors = JavaFx.call(() -> {
+            List<WeakReference<Object>> references = new ArrayList<>();
+            for (int i = 0; i < EDITORS; i++) {
+                CheckComboBoxTableCell<TableEntry, String> cell = cell(items);
+                CheckComboBox<String> checkComboBox = CellUtils.createCheckComboBox(cell, items,
+                        cell.converterProperty(), cell.selectionRulesProperty());
+                checkComboBox.getCheckModel().check(0);
+                references.add(new WeakReference<>(checkComboBox));
+                references.add(new WeakReference<>(cell));
+            }
+            return references;
+        });
+
+        for (WeakReference<Object> editor : editors) {
+            assertCollected(editor);
+        }
+        //The column's list still works, and was never the editors' to change
+        JavaFx.run(() -> items.add("Late"));
+        assertEquals(ConditionCatalog.OPTIONS.size() + 1, items.size());
+    }
+
+    @Test
+    public void anEditorFollowsTheColumnsItemsAndKeepsItsChecks() throws Exception {
+        JavaFx.run(() -> {
+            ObservableList<String> items = FXCollections.observableArrayList("Open", "Cut", "Ok");
+            CheckComboBoxTableCell<TableEntry, String> cell = new CheckComboBoxTableCell<>(items);
+            CheckComboBox<String> checkComboBox = CellUtils.createCheckComboBox(cell, items, cell.converterProperty());
+            checkComboBox.getCheckModel().check("Cut");
+
+            items.add("Late");
+            assertEquals(items, checkComboBox.getItems());
+            items.remove("Open");
+            assertEquals(items, checkComboBox.getItems());
+            items.set(items.indexOf("Ok"), "Fine");
+            assertEquals(items, checkComboBox.getItems());
+            FXCollections.sort(items, Comparator.reverseOrder());
+            assertEquals(items, checkComboBox.getItems());
+            assertEquals(Arrays.asList("Cut"), checkComboBox.getCheckModel().getCheckedItems());
+        });
+    }
+
+    private static CheckComboBoxTableCell<TableEntry, String> cell(ObservableList<String> items) {
+        return new CheckComboBoxTableCell<>(ConditionCatalog.CONVERTER, items, ConditionCatalog.RULES);
+    }
+
+    private static void assertCollected(WeakReference<?> reference) throws InterruptedException {
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertNull("Still reachable: " + reference.get(), reference.get());
+    }
+}
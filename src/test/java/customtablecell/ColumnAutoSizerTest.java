@@ -0,0 +1,215 @@
+package customtablecell;
+
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.value.ChangeListener;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.Scene;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import model.TableEntry;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import support.JavaFx;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The cached widths have to follow the rows however they change, not only through commits.
+ */
+public class ColumnAutoSizerTest {
+
+    private static final String NARROW = "Ok";
+
+    private static final String WIDE = "Open, Cut, Ok";
+
+    @BeforeClass
+    public static void startJavaFx() {
+        JavaFx.start();
+    }
+
+    @Test
+    public void aWiderValueRaisesTheWidth() throws Exception {
+        JavaFx.assumeTextLayout();
+        JavaFx.run(() -> {
+            TableView<TableEntry> tableView = createTable(entries(10, NARROW));
+            ColumnAutoSizer<TableEntry, String> autoSizer = install(tableView);
+            double narrow = autoSizer.computeWidth();
+
+            //As a refresh or a replicated edit does it: straight into the row
+            tableView.getItems().get(3).setCondition(WIDE);
+            assertTrue(autoSizer.computeWidth() > narrow);
+        });
+    }
+
+    @Test
+    public void changingTheWidestValueShrinksTheColumn() throws Exception {
+        JavaFx.assumeTextLayout();
+        JavaFx.run(() -> {
+            TableView<TableEntry> tableView = createTable(entries(10, NARROW));
+            ColumnAutoSizer<TableEntry, String> autoSizer = install(tableView);
+            double narrow = autoSizer.computeWidth();
+            tableView.getItems().get(3).setCondition(WIDE);
+            autoSizer.computeWidth();
+
+            tableView.getItems().get(3).setCondition(NARROW);
+            assertEquals(narrow, autoSizer.computeWidth(), 0);
+        });
+    }
+
+    @Test
+    public void addedAndRemovedRowsAreTakenIntoAccount() throws Exception {
+        JavaFx.assumeTextLayout();
+        JavaFx.run(() -> {
+            TableView<TableEntry> tableView = createTable(entries(10, NARROW));
+            ColumnAutoSizer<TableEntry, String> autoSizer = install(tableView);
+            double narrow = autoSizer.computeWidth();
+
+            TableEntry wide = entries(1, WIDE).get(0);
+            tableView.getItems().add(wide);
+            double wider = autoSizer.computeWidth();
+            assertTrue(wider > narrow);
+
+            tableView.getItems().remove(wide);
+            assertEquals(narrow, autoSizer.computeWidth(), 0);
+            //A removed row isn't listened to anymore
+            wide.setCondition(WIDE + ", " + WIDE);
+            assertEquals(narrow, autoSizer.computeWidth(), 0);
+        });
+    }
+
+    @Test
+    public void sampledTablesShrinkToo() throws Exception {
+        JavaFx.assumeTextLayout();
+        JavaFx.run(() -> {
+            TableView<TableEntry> tableView = createTable(entries(10, NARROW));
+            ColumnAutoSizer<TableEntry, String> autoSizer = install(tableView);
+            double narrow = autoSizer.computeWidth();
+
+            tableView.getItems().setAll(entries(3 * ColumnAutoSizer.SAMPLE_SIZE, WIDE));
+            assertTrue(autoSizer.computeWidth() > narrow);
+
+            for (TableEntry entry : tableView.getItems()) {
+                entry.setCondition(NARROW);
+            }
+            assertEquals(narrow, autoSizer.computeWidth(), 0);
+        });
+    }
+
+    @Test
+    public void aNewItemsListIsFollowed() throws Exception {
+        JavaFx.assumeTextLayout();
+        JavaFx.run(() -> {
+            TableView<TableEntry> tableView = createTable(entries(10, NARROW));
+            ColumnAutoSizer<TableEntry, String> autoSizer = install(tableView);
+            double narrow = autoSizer.computeWidth();
+
+            ObservableList<TableEntry> old = tableView.getItems();
+            tableView.setItems(FXCollections.observableArrayList(entries(10, NARROW)));
+            assertEquals(narrow, autoSizer.computeWidth(), 0);
+            old.get(0).setCondition(WIDE);
+            assertEquals(narrow, autoSizer.computeWidth(), 0);
+            tableView.getItems().get(0).setCondition(WIDE);
+            assertTrue(autoSizer.computeWidth() > narrow);
+        });
+    }
+
+    @Test
+    public void aLongHeaderWins() throws Exception {
+        JavaFx.assumeTextLayout();
+        JavaFx.run(() -> {
+            TableView<TableEntry> tableView = createTable(entries(10, NARROW));
+            ColumnAutoSizer<TableEntry, String> autoSizer = install(tableView);
+            double narrow = autoSizer.computeWidth();
+
+            tableView.getColumns().get(0).setText("A header much longer than any condition");
+            assertTrue(autoSizer.computeWidth() > narrow);
+        });
+    }
+
+    @Test
+    public void aNewStyleIsMeasuredWithItsFont() throws Exception {
+        JavaFx.assumeTextLayout();
+        JavaFx.run(() -> {
+            TableView<TableEntry> tableView = createTable(entries(10, WIDE));
+            ColumnAutoSizer<TableEntry, String> autoSizer = install(tableView);
+            Scene scene = new Scene(tableView, 600, 400);
+            scene.getRoot().applyCss();
+            tableView.layout();
+            double normal = autoSizer.computeWidth();
+
+            tableView.setStyle("-fx-font-size: 40px;");
+            scene.getRoot().applyCss();
+            tableView.layout();
+            assertTrue(autoSizer.computeWidth() > normal);
+        });
+    }
+
+    @Test
+    public void valuesCreatedPerCallAreReleased() throws Exception {
+        JavaFx.run(() -> {
+            //A factory that wraps the row's value anew on every call
+            int[] listening = new int[1];
+            TableView<TableEntry> tableView = new TableView<>(FXCollections.observableArrayList(entries(10, NARROW)));
+            TableColumn<TableEntry, String> column = new TableColumn<>();
+            column.setCellValueFactory(features -> new ReadOnlyObjectWrapper<String>(features.getValue().getCondition()) {
+                private final List<ChangeListener<? super String>> listeners = new ArrayList<>();
+
+                @Override
+                public void addListener(ChangeListener<? super String> listener) {
+                    listeners.add(listener);
+                    listening[0]++;
+                    super.addListener(listener);
+                }
+
+                @Override
+                public void removeListener(ChangeListener<? super String> listener) {
+                    if (listeners.remove(listener)) {
+                        listening[0]--;
+                    }
+                    super.removeListener(listener);
+                }
+            });
+            tableView.getColumns().add(column);
+            ColumnAutoSizer.install(column, new MultiValueStringConverter());
+            assertEquals(10, listening[0]);
+
+            tableView.getItems().remove(0, 4);
+            assertEquals(6, listening[0]);
+            tableView.getItems().add(entries(1, WIDE).get(0));
+            assertEquals(7, listening[0]);
+            tableView.setItems(FXCollections.observableArrayList(entries(3, NARROW)));
+            assertEquals(3, listening[0]);
+            tableView.getColumns().clear();
+            assertEquals(0, listening[0]);
+        });
+    }
+
+    private static TableView<TableEntry> createTable(List<TableEntry> entries) {
+        TableView<TableEntry> tableView = new TableView<>(FXCollections.observableArrayList(entries));
+        TableColumn<TableEntry, String> column = new TableColumn<>();
+        column.setCellValueFactory(features -> features.getValue().conditionProperty());
+        tableView.getColumns().add(column);
+        return tableView;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ColumnAutoSizer<TableEntry, String> install(TableView<TableEntry> tableView) {
+        return ColumnAutoSizer.install((TableColumn<TableEntry, String>) tableView.getColumns().get(0),
+                new MultiValueStringConverter());
+    }
+
+    private static List<TableEntry> entries(int count, String condition) {
+        List<TableEntry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            TableEntry entry = new TableEntry(i);
+            entry.setCondition(condition);
+            entries.add(entry);
+        }
+        return entries;
+    }
+}
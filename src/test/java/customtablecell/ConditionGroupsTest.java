@@ -0,0 +1,199 @@
+package customtablecell;
+
+import controller.ConditionCatalog;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.control.TreeItem;
+import model.KeyedObservableList;
+import model.TableEntry;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Groups of rows by their conditions, with the catalog's options: "Open", "Cut" and "Ok".
+ */
+public class ConditionGroupsTest {
+
+    @Test
+    public void rowsAreGroupedByTheirOptions() {
+        ObservableList<TableEntry> rows = rows("Open", "Open, Cut", null, "Cut,Open", "");
+        ConditionGroups<TableEntry> groups = groups(rows);
+
+        //In the order the groups appeared, however the options are spelled
+        assertEquals(Arrays.asList("Open (1)", "Open, Cut (2)", "(None) (2)"), groupNames(groups));
+        assertEquals(Arrays.asList(2, 4), members(groups, "Open, Cut"));
+        assertEquals(Arrays.asList(3, 5), members(groups, "(None)"));
+        assertEquals(ConditionCatalog.RULES.maskOf("Open, Cut"), group(groups, "Open, Cut").getMask());
+    }
+
+    @Test
+    public void addedRowsJoinTheirGroupOrStartOne() {
+        ObservableList<TableEntry> rows = rows("Open", "Ok");
+        ConditionGroups<TableEntry> groups = groups(rows);
+        ConditionGroups.Group open = group(groups, "Open");
+
+        rows.add(entry(3, "Open"));
+        assertSame(open, group(groups, "Open"));
+        assertEquals(2, open.getCount());
+        assertEquals(Arrays.asList(1, 3), members(groups, "Open"));
+
+        rows.addAll(entry(4, "Open, Ok"), entry(5, "Ok"));
+        assertEquals(Arrays.asList("Open (2)", "Ok (2)", "Open, Ok (1)"), groupNames(groups));
+    }
+
+    @Test
+    public void removedRowsLeaveAndEmptyGroupsGo() {
+        ObservableList<TableEntry> rows = rows("Open", "Ok", "Open", "Cut");
+        ConditionGroups<TableEntry> groups = groups(rows);
+        ConditionGroups.Group open = group(groups, "Open");
+
+        rows.remove(0);
+        assertEquals(1, open.getCount());
+        assertEquals(Arrays.asList(3), members(groups, "Open"));
+
+        rows.removeIf(entry -> entry.getPoNumber() == 2 || entry.getPoNumber() == 3);
+        assertEquals(0, open.getCount());
+        assertEquals(Arrays.asList("Cut (1)"), groupNames(groups));
+
+        //A group that comes back is a new one, at the end
+        rows.add(entry(5, "Open"));
+        assertEquals(Arrays.asList("Cut (1)", "Open (1)"), groupNames(groups));
+    }
+
+    @Test
+    public void aChangedConditionMovesTheRow() {
+        ObservableList<TableEntry> rows = rows("Open", "Open", "Ok");
+        ConditionGroups<TableEntry> groups = groups(rows);
+        ConditionGroups.Group open = group(groups, "Open");
+        int[] counts = new int[1];
+        open.countProperty().addListener((observable, oldCount, newCount) -> counts[0]++);
+
+        rows.get(0).setCondition("Ok");
+        assertEquals(1, counts[0]);
+        assertEquals(Arrays.asList("Open (1)", "Ok (2)"), groupNames(groups));
+        assertEquals(Arrays.asList(3, 1), members(groups, "Ok"));
+
+        //Spelled differently, but the same options: it stays where it is
+        rows.get(1).setCondition("Open,");
+        assertEquals(Arrays.asList(2), members(groups, "Open"));
+
+        rows.get(1).setCondition(null);
+        assertEquals(Arrays.asList("Ok (2)", "(None) (1)"), groupNames(groups));
+    }
+
+    @Test
+    public void theLastRowTakesTheLeavingRowsPlace() {
+        ObservableList<TableEntry> rows = rows("Open", "Open", "Open", "Open", "Open");
+        ConditionGroups<TableEntry> groups = groups(rows);
+
+        rows.remove(1);
+        assertEquals(Arrays.asList(1, 5, 3, 4), members(groups, "Open"));
+        rows.get(0).setCondition("Cut");
+        assertEquals(Arrays.asList(4, 5, 3), members(groups, "Open"));
+        //5 and 4 have been moved; they have to be found where they are now
+        rows.remove(entry(rows, 5));
+        assertEquals(Arrays.asList(4, 3), members(groups, "Open"));
+        rows.remove(entry(rows, 4));
+        assertEquals(Arrays.asList(3), members(groups, "Open"));
+        assertEquals(1, group(groups, "Open").getCount());
+    }
+
+    @Test
+    public void rowsMovedByAReconcileStayPut() {
+        KeyedObservableList<Integer, TableEntry> rows =
+                new KeyedObservableList<>(TableEntry::getPoNumber, TableEntry::updateFrom);
+        rows.reconcile(Arrays.asList(entry(1, "Open"), entry(2, "Ok"), entry(3, "Open"), entry(4, "Ok")));
+        ConditionGroups<TableEntry> groups = groups(rows);
+        TreeItem<Object> first = children(groups, "Open").get(0);
+
+        //The same rows the other way round: nothing to regroup
+        rows.reconcile(Arrays.asList(entry(4, "Ok"), entry(3, "Open"), entry(2, "Ok"), entry(1, "Open")));
+        assertEquals(Arrays.asList("Open (2)", "Ok (2)"), groupNames(groups));
+        assertEquals(Arrays.asList(1, 3), members(groups, "Open"));
+        assertSame(first, children(groups, "Open").get(0));
+
+        //Moved, changed, dropped and new rows in one go
+        rows.reconcile(Arrays.asList(entry(5, "Cut"), entry(1, "Open"), entry(3, "Ok"), entry(2, "Ok")));
+        assertEquals(Arrays.asList("Open (1)", "Ok (2)", "Cut (1)"), groupNames(groups));
+        assertEquals(Arrays.asList(1), members(groups, "Open"));
+        assertEquals(Arrays.asList(2, 3), members(groups, "Ok"));
+        assertSame(first, children(groups, "Open").get(0));
+    }
+
+    @Test
+    public void disposedGroupsStopFollowing() {
+        ObservableList<TableEntry> rows = rows("Open", "Ok");
+        ConditionGroups<TableEntry> groups = groups(rows);
+        groups.dispose();
+
+        rows.get(0).setCondition("Ok");
+        rows.add(entry(3, "Cut"));
+        assertEquals(Arrays.asList("Open (1)", "Ok (1)"), groupNames(groups));
+    }
+
+    private static ConditionGroups<TableEntry> groups(ObservableList<TableEntry> rows) {
+        return new ConditionGroups<>(rows, TableEntry::conditionProperty, ConditionCatalog.RULES,
+                entry -> Integer.toString(entry.getPoNumber()));
+    }
+
+    private static ObservableList<TableEntry> rows(String... conditions) {
+        ObservableList<TableEntry> rows = FXCollections.observableArrayList();
+        for (int i = 0; i < conditions.length; i++) {
+            rows.add(entry(i + 1, conditions[i]));
+        }
+        return rows;
+    }
+
+    private static TableEntry entry(int poNumber, String condition) {
+        TableEntry entry = new TableEntry(poNumber);
+        entry.setCondition(condition);
+        return entry;
+    }
+
+    private static TableEntry entry(List<TableEntry> rows, int poNumber) {
+        return rows.stream().filter(entry -> entry.getPoNumber() == poNumber).findFirst().get();
+    }
+
+    private static List<String> groupNames(ConditionGroups<TableEntry> groups) {
+        List<String> names = new ArrayList<>();
+        for (TreeItem<Object> item : groups.getRoot().getChildren()) {
+            names.add(item.getValue().toString());
+        }
+        return names;
+    }
+
+    private static ConditionGroups.Group group(ConditionGroups<TableEntry> groups, String options) {
+        for (TreeItem<Object> item : groups.getRoot().getChildren()) {
+            if (item.getValue().toString().startsWith(options + " (")) {
+                return (ConditionGroups.Group) item.getValue();
+            }
+        }
+        throw new AssertionError("No group " + options);
+    }
+
+    private static List<TreeItem<Object>> children(ConditionGroups<TableEntry> groups, String options) {
+        for (TreeItem<Object> item : groups.getRoot().getChildren()) {
+            if (item.getValue() == group(groups, options)) {
+                return item.getChildren();
+            }
+        }
+        throw new AssertionError("No group " + options);
+    }
+
+    /**
+     * The PO numbers of the group's rows, in the order of the tree.
+     */
+    private static List<Integer> members(ConditionGroups<TableEntry> groups, String options) {
+        List<Integer> poNumbers = new ArrayList<>();
+        for (TreeItem<Object> item : children(groups, options)) {
+            poNumbers.add(((TableEntry) item.getValue()).getPoNumber());
+        }
+        return poNumbers;
+    }
+}
@@ -0,0 +1,167 @@
+package customtablecell;
+
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.scene.control.TableView;
+import model.TableEntry;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import support.JavaFx;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class DerivedColumnTest {
+
+    private static final Function<String, String> DERIVE = condition -> "derived " + condition;
+
+    @BeforeClass
+    public static void startJavaFx() {
+        JavaFx.start();
+    }
+
+    @Test
+    public void smallTablesAreDerivedRightAway() throws Exception {
+        JavaFx.run(() -> {
+            TableView<TableEntry> tableView = new TableView<>(FXCollections.observableArrayList(entries(10)));
+            DerivedColumn<TableEntry, String, String> column =
+                    new DerivedColumn<>(tableView, TableEntry::conditionProperty, DERIVE);
+            for (TableEntry entry : tableView.getItems()) {
+                assertEquals(DERIVE.apply(entry.getCondition()), column.getValue(entry));
+            }
+
+            TableEntry added = new TableEntry(-1);
+            added.setCondition("Added");
+            tableView.getItems().add(added);
+            assertEquals("derived Added", column.getValue(added));
+            column.dispose();
+        });
+    }
+
+    @Test
+    public void largeTablesArePublishedFromTheBackground() throws Exception {
+        List<TableEntry> entries = entries(3 * DerivedColumn.CHUNK_SIZE + 7);
+        DerivedColumn<TableEntry, String, String> column = JavaFx.call(() ->
+                new DerivedColumn<>(new TableView<>(FXCollections.observableArrayList(entries)),
+                        TableEntry::conditionProperty, DERIVE));
+        waitUntilDerived(column, entries, DERIVE);
+        JavaFx.run(column::dispose);
+    }
+
+    @Test
+    public void anEditWinsOverAnOlderBulkResult() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Function<String, String> blocked = condition -> {
+            if (!Platform.isFxApplicationThread()) {
+                await(release);
+            }
+            return DERIVE.apply(condition);
+        };
+        List<TableEntry> entries = entries(2 * DerivedColumn.CHUNK_SIZE);
+        TableEntry edited = entries.get(5);
+        DerivedColumn<TableEntry, String, String> column = JavaFx.call(() -> {
+            DerivedColumn<TableEntry, String, String> derived = new DerivedColumn<>(
+                    new TableView<>(FXCollections.observableArrayList(entries)), TableEntry::conditionProperty, blocked);
+            //The bulk result for this row is computed from the value before the edit
+            edited.setCondition("Edited");
+            assertEquals("derived Edited", derived.getValue(edited));
+            assertNull(derived.getValue(entries.get(6)));
+            return derived;
+        });
+
+        release.countDown();
+        waitUntilDerived(column, entries, DERIVE);
+        JavaFx.run(() -> assertEquals("derived Edited", column.getValue(edited)));
+        JavaFx.run(column::dispose);
+    }
+
+    @Test
+    public void aNewFunctionDropsOlderBulkResults() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Function<String, String> old = condition -> {
+            await(release);
+            return "old " + condition;
+        };
+        Function<String, String> replacement = condition -> "new " + condition;
+        List<TableEntry> entries = entries(2 * DerivedColumn.CHUNK_SIZE);
+        DerivedColumn<TableEntry, String, String> column = JavaFx.call(() -> {
+            DerivedColumn<TableEntry, String, String> derived = new DerivedColumn<>(
+                    new TableView<>(FXCollections.observableArrayList(entries)), TableEntry::conditionProperty, old);
+            derived.setFunction(replacement);
+            return derived;
+        });
+        waitUntilDerived(column, entries, replacement);
+
+        //Let the old computation finish and come back; it must be dropped
+        release.countDown();
+        ForkJoinPool.commonPool().awaitQuiescence(10, TimeUnit.SECONDS);
+        JavaFx.flush();
+        Thread.sleep(100);
+        JavaFx.flush();
+        waitUntilDerived(column, entries, replacement);
+        JavaFx.run(column::dispose);
+    }
+
+    private static List<TableEntry> entries(int count) {
+        List<TableEntry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            TableEntry entry = new TableEntry(i);
+            entry.setCondition("Condition " + (i % 7));
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    /**
+     * Waits (in the fork-join pool, letting it start another thread meanwhile) for the latch.
+     */
+    private static void await(CountDownLatch latch) {
+        try {
+            ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+                @Override
+                public boolean block() throws InterruptedException {
+                    latch.await();
+                    return true;
+                }
+
+                @Override
+                public boolean isReleasable() {
+                    return latch.getCount() == 0;
+                }
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntilDerived(DerivedColumn<TableEntry, String, String> column, List<TableEntry> entries,
+                                         Function<String, String> function) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        String mismatch;
+        do {
+            mismatch = JavaFx.call(() -> {
+                for (TableEntry entry : entries) {
+                    String expected = function.apply(entry.getCondition());
+                    if (!expected.equals(column.getValue(entry))) {
+                        return "PO " + entry.getPoNumber() + ": expected " + expected + ", got "
+                                + column.getValue(entry);
+                    }
+                }
+                return null;
+            });
+            if (mismatch == null) {
+                return;
+            }
+            Thread.sleep(10);
+        } while (System.nanoTime() < deadline);
+        fail(mismatch);
+    }
+}
@@ -0,0 +1,185 @@
+package customtablecell;
+
+import controller.ConditionCatalog;
+import javafx.collections.FXCollections;
+import javafx.event.Event;
+import javafx.event.EventHandler;
+import javafx.scene.Scene;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import model.TableEntry;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import support.JavaFx;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Keys pressed on a condition cell, with the catalog's options: "Open", "Cut" and "Ok",
+ * where Ok excludes Cut and Cut requires Open.
+ */
+public class InlineToggleEditingTest {
+
+    private TableView<TableEntry> tableView;
+
+    private TableColumn<TableEntry, String> column;
+
+    private InlineToggleEditing<TableEntry> editing;
+
+    @BeforeClass
+    public static void startJavaFx() {
+        JavaFx.start();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        JavaFx.run(() -> {
+            List<TableEntry> entries = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                entries.add(new TableEntry(i));
+            }
+            tableView = new TableView<>(FXCollections.observableArrayList(entries));
+            tableView.setEditable(true);
+            column = new TableColumn<>("Condition");
+            column.setCellValueFactory(features -> features.getValue().conditionProperty());
+            tableView.getColumns().add(column);
+            editing = InlineToggleEditing.install(column, ConditionCatalog.RULES, ConditionCatalog.CONVERTER);
+            tableView.getFocusModel().focus(0, column);
+        });
+    }
+
+    @Test
+    public void digitsToggleTheOptionsInOrder() throws Exception {
+        JavaFx.run(() -> {
+            press(KeyCode.DIGIT1);
+            assertEquals("Open", condition(0));
+            press(KeyCode.NUMPAD2);
+            assertEquals("Open, Cut", condition(0));
+            press(KeyCode.DIGIT1);
+            //Cut needs Open, so it goes too
+            assertEquals("", condition(0));
+        });
+    }
+
+    @Test
+    public void mnemonicsToggleTheirOption() throws Exception {
+        JavaFx.run(() -> {
+            press(KeyCode.C);
+            assertEquals("Open, Cut", condition(0));
+            //O is Open's, so Ok has K
+            press(KeyCode.K);
+            assertEquals("Open, Ok", condition(0));
+            //Ok doesn't need Open
+            press(KeyCode.O);
+            assertEquals("Ok", condition(0));
+        });
+    }
+
+    @Test
+    public void otherKeysAreLeftToTheTable() throws Exception {
+        JavaFx.run(() -> {
+            //There is no fourth option, no option with an X, and Ctrl+1 is the table's
+            assertFalse(press(KeyCode.DIGIT4));
+            assertFalse(press(KeyCode.X));
+            KeyEvent ctrl = new KeyEvent(KeyEvent.KEY_PRESSED, "", "", KeyCode.DIGIT1, false, true, false, false);
+            Event.fireEvent(tableView, ctrl);
+            assertEquals(null, condition(0));
+        });
+    }
+
+    @Test
+    public void toggleCommitsThroughTheColumn() throws Exception {
+        JavaFx.run(() -> {
+            List<String> committed = new ArrayList<>();
+            column.addEventHandler(TableColumn.editCommitEvent(),
+                    (TableColumn.CellEditEvent<TableEntry, String> event) -> committed.add(event.getNewValue()));
+            assertTrue(editing.toggle(2, 1));
+            assertEquals("Open, Cut", condition(2));
+            assertEquals(1, committed.size());
+            assertEquals("Open, Cut", committed.get(0));
+
+            //If the commit handler doesn't write it, nothing was committed
+            column.setOnEditCommit(event -> {
+            });
+            assertFalse(editing.toggle(3, 0));
+            assertEquals(null, condition(3));
+        });
+    }
+
+    @Test
+    public void anInvalidValueIsCommittedCorrected() throws Exception {
+        JavaFx.run(() -> {
+            //Stored before the rules said Ok excludes Cut
+            tableView.getItems().get(0).setCondition("Cut, Ok");
+            press(KeyCode.DIGIT1);
+            //What the popup commits for Open, Cut and Ok checked
+            assertEquals("Open, Ok", condition(0));
+            assertEquals(ConditionCatalog.RULES.valueOfCorrected(ConditionCatalog.RULES.maskOf("Open, Cut, Ok"),
+                    ConditionCatalog.CONVERTER), condition(0));
+        });
+    }
+
+    @Test
+    public void nothingHappensWhileACellIsEdited() throws Exception {
+        JavaFx.run(() -> {
+            tableView.edit(1, column);
+            assertFalse(press(KeyCode.DIGIT1));
+            assertEquals(null, condition(0));
+
+            tableView.edit(-1, null);
+            editing.setEnabled(false);
+            assertFalse(press(KeyCode.DIGIT1));
+            editing.setEnabled(true);
+            tableView.setEditable(false);
+            assertFalse(press(KeyCode.DIGIT1));
+            assertEquals(null, condition(0));
+        });
+    }
+
+    @Test
+    public void theFocusMovesDownAfterACommit() throws Exception {
+        //Moving the focus is the table's own key handling, so the table needs its skin
+        JavaFx.assumeTextLayout();
+        JavaFx.run(() -> {
+            new Scene(tableView, 400, 300).getRoot().applyCss();
+            tableView.layout();
+            tableView.getFocusModel().focus(0, column);
+
+            press(KeyCode.DIGIT1);
+            assertEquals("Open", condition(0));
+            assertEquals(1, tableView.getFocusModel().getFocusedIndex());
+            press(KeyCode.DIGIT1);
+            assertEquals("Open", condition(1));
+            assertEquals(2, tableView.getFocusModel().getFocusedIndex());
+
+            //The last row stays focused
+            tableView.getFocusModel().focus(4, column);
+            press(KeyCode.DIGIT1);
+            assertEquals(4, tableView.getFocusModel().getFocusedIndex());
+        });
+    }
+
+    /**
+     * Presses the key on the table, and returns true if it was taken as a toggle.
+     */
+    private boolean press(KeyCode code) {
+        boolean[] reachedTheTable = new boolean[1];
+        EventHandler<KeyEvent> handler = event -> reachedTheTable[0] |= event.getCode() == code;
+        tableView.addEventHandler(KeyEvent.KEY_PRESSED, handler);
+        Event.fireEvent(tableView, new KeyEvent(KeyEvent.KEY_PRESSED, "", "", code, false, false, false, false));
+        tableView.removeEventHandler(KeyEvent.KEY_PRESSED, handler);
+        return !reachedTheTable[0];
+    }
+
+    private String condition(int row) {
+        return tableView.getItems().get(row).getCondition();
+    }
+}
@@ -0,0 +1,82 @@
+package customtablecell;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link MultiValueStringConverter} against the comma lists it replaced,
+ * {@link CellUtils#convertToCommaList} and {@link CellUtils#convertCommaListToSeparateItems}.
+ * <p>
+ * The values have {@code items} plain items, as the existing values do; run it with
+ * {@code -prof gc} to see the allocations as well.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class MultiValueStringConverterBenchmark {
+
+    @Param({"1", "3", "10"})
+    int items;
+
+    private final MultiValueStringConverter converter = new MultiValueStringConverter();
+
+    private final List<String> decoded = new ArrayList<>();
+
+    private List<String> checked;
+
+    private String value;
+
+    @Setup
+    public void setUp() {
+        checked = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            checked.add("Condition " + i);
+        }
+        value = converter.encode(checked);
+    }
+
+    @Benchmark
+    public String encode() {
+        return converter.encode(checked);
+    }
+
+    @Benchmark
+    public String convertToCommaList() {
+        return CellUtils.convertToCommaList(checked, CellUtils.<String>defaultStringConverter());
+    }
+
+    @Benchmark
+    public List<String> decode() {
+        decoded.clear();
+        converter.decode(value, decoded);
+        return decoded;
+    }
+
+    @Benchmark
+    public String[] convertCommaListToSeparateItems() {
+        return CellUtils.convertCommaListToSeparateItems(value);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MultiValueStringConverterBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,102 @@
+package customtablecell;
+
+import javafx.util.StringConverter;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class MultiValueStringConverterTest {
+
+    private final MultiValueStringConverter converter = new MultiValueStringConverter();
+
+    @Test
+    public void plainValuesLookLikeTheOldCommaLists() {
+        assertEquals("Open, Cut", converter.encode(Arrays.asList("Open", "Cut")));
+        assertEquals(Arrays.asList("Open", "Cut"), converter.decode("Open, Cut"));
+        assertEquals(Arrays.asList("Open", "Cut"), converter.decode("Open,Cut"));
+        assertEquals(Collections.emptyList(), converter.decode(""));
+        assertEquals(Collections.emptyList(), converter.decode(null));
+    }
+
+    @Test
+    public void commasInsideAnItemAreEscaped() {
+        List<String> items = Arrays.asList("Cut, badly", "Ok");
+        assertEquals("Cut\\, badly, Ok", converter.encode(items));
+        assertEquals(items, converter.decode(converter.encode(items)));
+    }
+
+    @Test
+    public void aLeadingSpaceIsKept() {
+        List<String> items = Arrays.asList(" a", "b");
+        assertEquals("\\ a, b", converter.encode(items));
+        assertEquals(items, converter.decode(converter.encode(items)));
+        //Only the first space of an item is escaped
+        assertEquals(Collections.singletonList("  a "), converter.decode(converter.encode(Collections.singletonList("  a "))));
+        //Unescaped, it only separates
+        assertEquals(Arrays.asList("a", "b"), converter.decode("a,  b"));
+    }
+
+    @Test
+    public void aBackslashAtTheEndOfAnItem() {
+        List<String> items = Arrays.asList("a\\", "b\\");
+        assertEquals("a\\\\, b\\\\", converter.encode(items));
+        assertEquals(items, converter.decode(converter.encode(items)));
+        //A lone backslash at the very end of a value is taken as is
+        assertEquals(Collections.singletonList("a\\"), converter.decode("a\\"));
+    }
+
+    @Test
+    public void anEmptyItemInTheMiddleIsKept() {
+        List<String> items = Arrays.asList("a", "", "b");
+        assertEquals("a, , b", converter.encode(items));
+        assertEquals(items, converter.decode("a, , b"));
+        assertEquals(items, converter.decode("a,,b"));
+        assertEquals(Arrays.asList("", "a"), converter.decode(", a"));
+    }
+
+    @Test
+    public void anEmptyLastItemIsDropped() {
+        assertEquals(Collections.singletonList("a"), converter.decode("a, "));
+        assertEquals(Collections.singletonList("a"), converter.decode("a,"));
+        //As with the plain comma lists: encoding it and decoding again loses it
+        assertEquals(Collections.singletonList("a"), converter.decode(converter.encode(Arrays.asList("a", ""))));
+    }
+
+    @Test
+    public void decodeAddsToTheGivenList() {
+        List<String> items = new ArrayList<>(Collections.singletonList("x"));
+        converter.decode("a, b\\,c", items);
+        assertEquals(Arrays.asList("x", "a", "b,c"), items);
+    }
+
+    @Test
+    public void toStringShowsTheItemsUnescaped() {
+        assertEquals("Open, Cut", converter.toString("Open, Cut"));
+        assertEquals("Cut, badly, Ok", converter.toString("Cut\\, badly, Ok"));
+        assertNull(converter.toString(null));
+    }
+
+    @Test
+    public void theItemConverterIsUsedForEachItem() {
+        MultiValueStringConverter upper = new MultiValueStringConverter(new StringConverter<String>() {
+            @Override
+            public String toString(String item) {
+                return item.toUpperCase();
+            }
+
+            @Override
+            public String fromString(String text) {
+                return text.toLowerCase();
+            }
+        });
+        assertEquals("OPEN, CUT", upper.toString("open, cut"));
+        assertEquals("open, cut", upper.fromString("OPEN , ,CUT"));
+        assertNull(upper.fromString(null));
+    }
+}
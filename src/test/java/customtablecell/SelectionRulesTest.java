@@ -0,0 +1,198 @@
+package customtablecell;
+
+import javafx.util.StringConverter;
+import javafx.util.converter.DefaultStringConverter;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SelectionRulesTest {
+
+    private static final long A = 1L, B = 1L << 1, C = 1L << 2, D = 1L << 3;
+
+    /**
+     * C requires B, B requires A, and D excludes A.
+     */
+    private final SelectionRules<String> rules = SelectionRules.forOptions(Arrays.asList("A", "B", "C", "D"))
+            .requires("C", "B")
+            .requires("B", "A")
+            .excludes("D", "A")
+            .compile();
+
+    @Test
+    public void checkAddsTransitiveRequirements() {
+        assertEquals(A | B | C, rules.check(0L, 2));
+        assertEquals(A, rules.check(0L, 0));
+    }
+
+    @Test
+    public void checkClearsConflictsAndWhatDependsOnThem() {
+        //D excludes A, and B and C (transitively) need A
+        assertEquals(D, rules.check(A | B | C, 3));
+        //Checking C brings back A, which pushes out D
+        assertEquals(A | B | C, rules.check(D, 2));
+    }
+
+    @Test
+    public void uncheckClearsDependents() {
+        assertEquals(0L, rules.uncheck(A | B | C, 0));
+        assertEquals(A, rules.uncheck(A | B | C, 1));
+        assertEquals(A | B, rules.uncheck(A | B | C, 2));
+        //Unchecking something that isn't checked changes nothing
+        assertEquals(D, rules.uncheck(D, 1));
+    }
+
+    @Test
+    public void toggleFlipsAndCorrects() {
+        assertEquals(A | B, rules.toggle(0L, 1));
+        assertEquals(A, rules.toggle(A | B, 1));
+    }
+
+    @Test
+    public void isValid() {
+        assertTrue(rules.isValid(0L));
+        assertTrue(rules.isValid(A | B | C));
+        assertTrue(rules.isValid(D));
+        assertFalse(rules.isValid(C));
+        assertFalse(rules.isValid(A | C));
+        assertFalse(rules.isValid(A | D));
+    }
+
+    @Test
+    public void correctLeavesValidMasksAlone() {
+        assertEquals(A | B, rules.correct(A | B));
+        assertEquals(0L, rules.correct(0L));
+    }
+
+    @Test
+    public void correctChecksAgainInDisplayOrder() {
+        assertEquals(A | B | C, rules.correct(C));
+        //D comes after A, so D wins
+        assertEquals(D, rules.correct(A | D));
+        for (long mask = 0; mask < 16; mask++) {
+            assertTrue("correct(" + mask + ")", rules.isValid(rules.correct(mask)));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void optionThatExcludesItsRequirementIsRejected() {
+        SelectionRules.forOptions(Arrays.asList("A", "B")).requires("A", "B").excludes("A", "B").compile();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void optionThatExcludesATransitiveRequirementIsRejected() {
+        SelectionRules.forOptions(Arrays.asList("A", "B", "C"))
+                .requires("A", "B")
+                .requires("B", "C")
+                .excludes("A", "C")
+                .compile();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownOptionIsRejected() {
+        SelectionRules.forOptions(Arrays.asList("A", "B")).requires("A", "Z");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void duplicateOptionIsRejected() {
+        SelectionRules.forOptions(Arrays.asList("A", "B", "A"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tooManyOptionsAreRejected() {
+        List<String> options = new ArrayList<>();
+        for (int i = 0; i <= SelectionRules.MAX_OPTIONS; i++) {
+            options.add("Option " + i);
+        }
+        SelectionRules.forOptions(options);
+    }
+
+    @Test
+    public void maskAndValueRoundTrip() {
+        assertEquals(A | C, rules.maskOf("A, C"));
+        assertEquals(A | C, rules.maskOf("C, Unknown, A"));
+        assertEquals(0L, rules.maskOf(null));
+        assertEquals("A, B, C", rules.valueOf(A | B | C));
+        assertEquals("", rules.valueOf(0L));
+        assertEquals(B | D, rules.maskOf(rules.valueOf(B | D)));
+    }
+
+    @Test
+    public void validateAllReturnsTheBrokenRowsInOrder() {
+        List<String> rows = new ArrayList<>();
+        List<Integer> broken = new ArrayList<>();
+        String[] values = {"A, B", "C", "D", "A, D", "", "A, B, C", "B"};
+        List<String> brokenValues = Arrays.asList("C", "A, D", "B");
+        for (int i = 0; i < 10_000; i++) {
+            String value = values[i % values.length];
+            rows.add(value);
+            if (brokenValues.contains(value)) {
+                broken.add(i);
+            }
+        }
+        int[] expected = new int[broken.size()];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = broken.get(i);
+        }
+        assertArrayEquals(expected, rules.validateAll(rows, row -> row));
+        assertArrayEquals(new int[0], rules.validateAll(Collections.<String>emptyList(), row -> row));
+    }
+
+    @Test
+    public void maskOfReadsWithTheColumnsConverter() {
+        //Shown in lower case, like a converter with its own spelling of the options
+        StringConverter<String> lowerCase = new StringConverter<String>() {
+            @Override
+            public String toString(String option) {
+                return option.toLowerCase();
+            }
+
+            @Override
+            public String fromString(String text) {
+                return text.toUpperCase();
+            }
+        };
+        assertEquals("a, c", rules.valueOf(A | C, lowerCase));
+        assertEquals(A | C, rules.maskOf("a, c", lowerCase));
+        assertEquals(0L, rules.maskOf("a, c"));
+        //Without a converter it reads what MultiValueStringConverter writes
+        assertEquals(rules.maskOf("A, D"), rules.maskOf("A, D", null));
+        for (long mask = 0; mask < 1L << rules.getOptions().size(); mask++) {
+            assertEquals(mask, rules.maskOf(rules.valueOf(mask, lowerCase), lowerCase));
+        }
+    }
+
+    @Test
+    public void maskOfUnescapesWithAMultiValueConverter() {
+        MultiValueStringConverter converter = new MultiValueStringConverter();
+        SelectionRules<String> commas = SelectionRules.forOptions(Arrays.asList("Cut, partly", "Ok")).compile();
+        String value = commas.valueOf(3L, converter);
+        assertEquals(3L, commas.maskOf(value, converter));
+        assertEquals(1L, commas.maskOf(commas.valueOf(1L, converter), converter));
+    }
+
+    @Test
+    public void validateAllReadsWithTheColumnsConverter() {
+        StringConverter<String> plain = new DefaultStringConverter();
+        List<String> rows = Arrays.asList("A,B", "C", "A, D");
+        assertArrayEquals(new int[]{1, 2}, rules.validateAll(rows, row -> row, plain));
+        assertArrayEquals(rules.validateAll(rows, row -> row), rules.validateAll(rows, row -> row, null));
+    }
+
+    @Test
+    public void optionsAreCopied() {
+        List<String> options = new ArrayList<>(Arrays.asList("A", "B"));
+        SelectionRules<String> copied = SelectionRules.forOptions(options).compile();
+        options.add("C");
+        assertEquals(Arrays.asList("A", "B"), copied.getOptions());
+        assertEquals(-1, copied.indexOf("C"));
+    }
+}
@@ -0,0 +1,195 @@
+package launcher;
+
+import controller.ConditionCatalog;
+import customtablecell.SelectionRules;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * The batch job, with the catalog's options: "Open", "Cut" and "Ok", where Ok excludes Cut
+ * and Cut requires Open.
+ */
+public class BatchLauncherTest {
+
+    private static final SelectionRules<String> RULES = ConditionCatalog.RULES;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void badArgumentsAreRejected() {
+        assertRejected("--add=Cut");
+        assertRejected("--in=a", "--add=Cut");
+        assertRejected("--in=a", "--out=b");
+        assertRejected("--in=a", "--out=b", "--add=Broken");
+        assertRejected("--in=a", "--out=b", "--add=Cut", "--sort=Open");
+        assertRejected("--in=a", "--out=b", "add=Cut");
+        assertRejected("--in=a", "--out=b", "--add");
+    }
+
+    @Test
+    public void editsFollowTheRules() {
+        BatchLauncher batch = batch("--add=Cut");
+        assertEquals("1\tOpen, Cut", batch.apply("1\t"));
+        batch = batch("--add=Ok");
+        assertEquals("1\tOpen, Ok", batch.apply("1\tOpen, Cut"));
+        batch = batch("--remove=Open");
+        assertEquals("1\tOk", batch.apply("1\tOpen, Cut, Ok"));
+        //Corrected like any other selection: Cut brings Open, then Ok pushes out Cut
+        batch = batch("--replace=Cut,Ok");
+        assertEquals("1\tOpen, Ok", batch.apply("1\tCut"));
+        //In the order they are given
+        batch = batch("--add=Cut", "--remove=Open", "--add=Ok");
+        assertEquals("1\tOk", batch.apply("1\t"));
+    }
+
+    @Test
+    public void withAndWithoutSelectTheRows() {
+        BatchLauncher batch = batch("--with=Open", "--without=Ok", "--add=Cut");
+        assertEquals("1\tOpen, Cut", batch.apply("1\tOpen"));
+        String ok = "2\tOk";
+        assertSame(ok, batch.apply(ok));
+        String withOk = "3\tOpen, Ok";
+        assertSame(withOk, batch.apply(withOk));
+        String empty = "4\t";
+        assertSame(empty, batch.apply(empty));
+
+        //Both can name several conditions, and be given more than once
+        batch = batch("--with=Open", "--with=Cut", "--remove=Cut");
+        assertEquals("1\tOpen", batch.apply("1\tOpen, Cut"));
+        String open = "2\tOpen";
+        assertSame(open, batch.apply(open));
+        batch = batch("--without=Cut,Ok", "--add=Ok");
+        assertEquals("1\tOpen, Ok", batch.apply("1\tOpen"));
+        String cut = "2\tOpen, Cut";
+        assertSame(cut, batch.apply(cut));
+    }
+
+    @Test
+    public void invalidRowsComeOutAsTheEditorsWouldCommitThem() {
+        //Cut without Open, and Cut with Ok: stored before the rules
+        BatchLauncher batch = batch("--add=Open");
+        assertEquals("1\t" + RULES.valueOfCorrected(RULES.maskOf("Open, Cut, Ok"), ConditionCatalog.CONVERTER),
+                batch.apply("1\tCut, Ok"));
+        assertEquals("1\tOpen, Ok", batch.apply("1\tCut, Ok"));
+        batch = batch("--remove=Ok");
+        assertEquals("2\tOpen, Cut", batch.apply("2\tCut"));
+    }
+
+    @Test
+    public void valuesAreReadAndWrittenTheWayTheTableDoes() {
+        BatchLauncher batch = batch("--with=Open", "--add=Open");
+        for (long mask = 0; mask < 1L << RULES.getOptions().size(); mask++) {
+            if (!RULES.isValid(mask)) {
+                continue;
+            }
+            String value = RULES.valueOf(mask, ConditionCatalog.CONVERTER);
+            assertEquals(mask, RULES.maskOf(value));
+            //Nothing to change, so not even the spelling changes
+            String line = "7\t" + value;
+            assertSame(line, batch.apply(line));
+        }
+        String unusual = "7\tOpen,Cut";
+        assertSame(unusual, batch.apply(unusual));
+        //Written the way the table writes it once it changes
+        assertEquals("7\tOpen, Ok", batch("--add=Ok").apply("7\tCut,Open"));
+    }
+
+    @Test
+    public void theFileKeepsItsOrderAndOtherLines() throws IOException {
+        List<String> lines = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        lines.add("# PO\tcondition");
+        expected.add("# PO\tcondition");
+        lines.add("");
+        expected.add("");
+        lines.add("a line without a tab");
+        expected.add("a line without a tab");
+        for (int i = 0; i < 5000; i++) {
+            String condition = RULES.valueOf(i % 5, ConditionCatalog.CONVERTER);
+            lines.add(i + "\t" + condition);
+            expected.add(i + "\t" + (i % 5 == 1 ? "Open, Cut" : condition));
+        }
+        int changed = runBatch(lines, expected, "--with=Open", "--without=Cut,Ok", "--add=Cut");
+        assertEquals(1000, changed);
+    }
+
+    @Test
+    public void aMalformedPoNumberFailsTheRun() throws IOException {
+        File in = write("in.tsv", Arrays.asList("1\tOpen", "2\tOpen", "PO 3\tOpen", "4\tOpen", "x\tOpen"));
+        File out = new File(folder.getRoot(), "out.tsv");
+        BatchLauncher batch = batch("--in=" + in, "--out=" + out, "--add=Cut");
+        try {
+            batch.run();
+            fail("A row without a PO number should fail the run");
+        } catch (IllegalArgumentException expected) {
+            assertEquals("Line 3: \"PO 3\" is not a PO number.", expected.getMessage());
+        }
+        assertFalse(out.exists());
+
+        //An empty PO number is no PO number either
+        in = write("empty.tsv", Arrays.asList("1\tOpen", "\tOpen"));
+        try {
+            batch("--in=" + in, "--out=" + out, "--add=Cut").run();
+            fail("A row without a PO number should fail the run");
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage().startsWith("Line 2:"));
+        }
+    }
+
+    private int runBatch(List<String> lines, List<String> expected, String... args) throws IOException {
+        File in = write("in.tsv", lines);
+        File out = new File(folder.getRoot(), "out.tsv");
+        List<String> all = new ArrayList<>(Arrays.asList("--in=" + in, "--out=" + out));
+        all.addAll(Arrays.asList(args));
+        int changed = batch(all.toArray(new String[0])).run();
+        assertEquals(expected, Files.readAllLines(out.toPath(), StandardCharsets.UTF_8));
+        return changed;
+    }
+
+    private File write(String name, List<String> lines) throws IOException {
+        File file = new File(folder.getRoot(), name);
+        Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    /**
+     * A batch with the given options; --in and --out are filled in if missing.
+     */
+    private static BatchLauncher batch(String... args) {
+        List<String> all = new ArrayList<>(Arrays.asList(args));
+        if (all.stream().noneMatch(arg -> arg.startsWith("--in="))) {
+            all.add("--in=unused");
+        }
+        if (all.stream().noneMatch(arg -> arg.startsWith("--out="))) {
+            all.add("--out=unused");
+        }
+        BatchLauncher batch = new BatchLauncher();
+        batch.parse(all.toArray(new String[0]));
+        return batch;
+    }
+
+    private static void assertRejected(String... args) {
+        try {
+            new BatchLauncher().parse(args);
+            fail("Should have been rejected: " + Arrays.toString(args));
+        } catch (IllegalArgumentException expected) {
+            //As it should
+        }
+    }
+}
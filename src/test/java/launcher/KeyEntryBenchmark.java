@@ -0,0 +1,178 @@
+package launcher;
+
+import controller.Controller;
+import customtablecell.InlineToggleEditing;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.event.Event;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.stage.Stage;
+import javafx.util.Duration;
+import model.TableEntry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Measures how long it takes from a key press on a condition cell to the row's condition
+ * being updated, when conditions are keyed in without the popup (see
+ * {@link InlineToggleEditing}).
+ * <p>
+ * The real layout is shown, a condition cell is focused, and random number keys are pressed
+ * on the table, a few per frame, the way an operator keying in POs would. Every key press is
+ * timed from the moment it is delivered until its row holds the new condition; a key press
+ * that doesn't change its row fails the run with exit code 1. The first {@code --warmup} key
+ * presses aren't counted.
+ * <p>
+ * Options (all optional):
+ * <pre>
+ * --keys=20000      key presses to time
+ * --warmup=2000     key presses before timing starts
+ * --perFrame=5      key presses per frame
+ * --rows=2000       rows in the table
+ * --seed=...        seed for the random keys
+ * </pre>
+ */
+public class KeyEntryBenchmark extends Application {
+
+    private static final KeyCode[] DIGITS = {
+            KeyCode.DIGIT1, KeyCode.DIGIT2, KeyCode.DIGIT3, KeyCode.DIGIT4, KeyCode.DIGIT5,
+            KeyCode.DIGIT6, KeyCode.DIGIT7, KeyCode.DIGIT8, KeyCode.DIGIT9
+    };
+
+    private Controller controller;
+
+    private Random random;
+
+    private int warmup;
+
+    private int keys;
+
+    private int perFrame;
+
+    private long[] latencies;
+
+    /**
+     * What {@link InlineToggleEditing} reports for the toggle and commit alone.
+     */
+    private long commits;
+
+    private long commitNanos;
+
+    private long maxCommitNanos;
+
+    private int pressed;
+
+    private Timeline frames;
+
+    @Override
+    public void start(Stage primaryStage) throws Exception {
+        Map<String, String> named = getParameters().getNamed();
+        keys = Integer.parseInt(named.getOrDefault("keys", "20000"));
+        warmup = Integer.parseInt(named.getOrDefault("warmup", "2000"));
+        perFrame = Integer.parseInt(named.getOrDefault("perFrame", "5"));
+        int rowCount = Integer.parseInt(named.getOrDefault("rows", "2000"));
+        long seed = Long.parseLong(named.getOrDefault("seed", Long.toString(System.nanoTime())));
+        random = new Random(seed);
+        latencies = new long[keys];
+        System.out.println("Timing " + keys + " key presses with seed " + seed);
+
+        FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/layout.fxml"));
+        Parent root = loader.load();
+        controller = loader.getController();
+        List<TableEntry> entries = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            entries.add(new TableEntry(1000 * (i + 1)));
+        }
+        controller.refresh(entries);
+        controller.getInlineEditing().setLatencyListener(nanos -> {
+            if (pressed >= warmup) {
+                commits++;
+                commitNanos += nanos;
+                maxCommitNanos = Math.max(maxCommitNanos, nanos);
+            }
+        });
+
+        primaryStage.setTitle("Timing Editable CheckComboBox");
+        primaryStage.setScene(new Scene(root, 600, 400));
+        primaryStage.show();
+
+        TableView<TableEntry> tableView = controller.getTableView();
+        tableView.requestFocus();
+        tableView.getFocusModel().focus(0, controller.getConditionColumn());
+
+        frames = new Timeline(new KeyFrame(Duration.millis(16), event -> frame()));
+        frames.setCycleCount(Timeline.INDEFINITE);
+        frames.play();
+    }
+
+    private void frame() {
+        TableView<TableEntry> tableView = controller.getTableView();
+        TableColumn<TableEntry, String> column = controller.getConditionColumn();
+        int options = Math.min(DIGITS.length, controller.getRules().getOptions().size());
+
+        for (int i = 0; i < perFrame; i++) {
+            //Start over at the top once the last row has been keyed in
+            int row = tableView.getFocusModel().getFocusedIndex();
+            if (row < 0 || row == tableView.getItems().size() - 1) {
+                row = 0;
+                tableView.scrollTo(row);
+                tableView.getFocusModel().focus(row, column);
+            }
+            TableEntry entry = tableView.getItems().get(row);
+            String before = entry.getCondition();
+            KeyCode key = DIGITS[random.nextInt(options)];
+
+            long start = System.nanoTime();
+            Event.fireEvent(tableView, new KeyEvent(KeyEvent.KEY_PRESSED, key.getName(), key.getName(), key,
+                    false, false, false, false));
+            long latency = System.nanoTime() - start;
+
+            if (Objects.equals(before, entry.getCondition())) {
+                System.err.println("FAILED: pressing " + key.getName() + " didn't change PO "
+                        + entry.getPoNumber() + " (\"" + before + "\").");
+                System.exit(1);
+            }
+            if (pressed >= warmup) {
+                latencies[pressed - warmup] = latency;
+            }
+            pressed++;
+            if (pressed == warmup + keys) {
+                frames.stop();
+                report();
+                Platform.exit();
+                return;
+            }
+        }
+    }
+
+    private void report() {
+        Arrays.sort(latencies);
+        System.out.println("Key press to committed condition, over " + keys + " key presses (microseconds):");
+        System.out.printf("  p50 %.1f  p90 %.1f  p99 %.1f  max %.1f%n",
+                percentile(0.50), percentile(0.90), percentile(0.99), latencies[keys - 1] / 1000.0);
+        System.out.printf("  toggle and commit alone: average %.1f, max %.1f over %d commits%n",
+                commits == 0 ? 0 : commitNanos / 1000.0 / commits, maxCommitNanos / 1000.0, commits);
+    }
+
+    private double percentile(double fraction) {
+        return latencies[Math.min(keys - 1, (int) (fraction * keys))] / 1000.0;
+    }
+
+
+    public static void main(String[] args) {
+        launch(args);
+    }
+}
@@ -0,0 +1,341 @@
+package launcher;
+
+import controller.Controller;
+import customtablecell.SelectionRules;
+import javafx.animation.KeyFrame;
+import javafx.animation.PauseTransition;
+import javafx.animation.Timeline;
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.event.Event;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.stage.Stage;
+import javafx.util.Callback;
+import javafx.util.Duration;
+import model.TableEntry;
+import org.controlsfx.control.CheckComboBox;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Runs the real layout for a long time under randomized scrolling, editing, opening and
+ * closing the CheckComboBox popup, toggling checks in it, committing, cancelling,
+ * refreshing and option-catalog changes, to catch editors and cells that are kept alive
+ * when they shouldn't be.
+ * <p>
+ * Every so often the whole table is thrown away and loaded again. Every cell of the
+ * condition column is tracked with a weak reference as the column creates it, and so is
+ * every editor as soon as a cell shows it. If any of them is still reachable after garbage
+ * collection, or the heap keeps growing from one table to the next, the run fails with exit
+ * code 1.
+ * <p>
+ * Options (all optional):
+ * <pre>
+ * --minutes=120     how long to run
+ * --recreate=30     seconds between re-creating the table
+ * --rows=2000       rows in the table
+ * --seed=...        seed for the random sequence, to replay a failing run
+ * </pre>
+ */
+public class SoakLauncher extends Application {
+
+    /**
+     * How much the heap may grow over the first table before the run fails.
+     */
+    private static final long HEAP_SLACK = 64L * 1024 * 1024;
+
+    private Stage stage;
+
+    private Random random;
+
+    private int rowCount;
+
+    private Controller controller;
+
+    private List<WeakReference<Object>> tracked = new ArrayList<>();
+
+    /**
+     * Everything in {@link #tracked}, so nothing is tracked twice. Held weakly.
+     */
+    private Set<Object> trackedSet = Collections.newSetFromMap(new WeakHashMap<>());
+
+    /**
+     * The editor whose popup is showing, if any.
+     */
+    private CheckComboBox<String> showing;
+
+    private long baselineHeap = -1;
+
+    private long operations;
+
+    private int tables;
+
+    private int extraOptions;
+
+    @Override
+    public void start(Stage primaryStage) throws Exception {
+        Map<String, String> named = getParameters().getNamed();
+        long minutes = Long.parseLong(named.getOrDefault("minutes", "120"));
+        long recreateSeconds = Long.parseLong(named.getOrDefault("recreate", "30"));
+        long seed = Long.parseLong(named.getOrDefault("seed", Long.toString(System.nanoTime())));
+        rowCount = Integer.parseInt(named.getOrDefault("rows", "2000"));
+        random = new Random(seed);
+        System.out.println("Soaking for " + minutes + " minutes with seed " + seed);
+
+        stage = primaryStage;
+        stage.setTitle("Soaking Editable CheckComboBox");
+        stage.setScene(new Scene(load(), 600, 400));
+        stage.show();
+
+        Timeline steps = new Timeline(new KeyFrame(Duration.millis(20), event -> step()));
+        steps.setCycleCount(Timeline.INDEFINITE);
+        steps.play();
+
+        Timeline recreate = new Timeline(new KeyFrame(Duration.seconds(recreateSeconds), event -> recreate()));
+        recreate.setCycleCount(Timeline.INDEFINITE);
+        recreate.play();
+
+        PauseTransition end = new PauseTransition(Duration.minutes(minutes));
+        end.setOnFinished(event -> {
+            System.out.println("Passed: " + operations + " operations over " + tables + " tables.");
+            Platform.exit();
+        });
+        end.play();
+    }
+
+    /**
+     * Loads a fresh copy of the layout and starts tracking its condition cells.
+     */
+    private Parent load() throws IOException {
+        FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/layout.fxml"));
+        Parent root = loader.load();
+        controller = loader.getController();
+        tables++;
+        extraOptions = 0;
+
+        //Track every cell as it is made, and every editor as soon as its cell shows it
+        TableColumn<TableEntry, String> column = controller.getConditionColumn();
+        Callback<TableColumn<TableEntry, String>, TableCell<TableEntry, String>> cellFactory = column.getCellFactory();
+        column.setCellFactory(c -> {
+            TableCell<TableEntry, String> cell = cellFactory.call(c);
+            track(cell);
+            cell.graphicProperty().addListener((observable, oldGraphic, newGraphic) -> {
+                if (newGraphic != null) {
+                    track(newGraphic);
+                }
+            });
+            return cell;
+        });
+
+        controller.refresh(createEntries());
+        return root;
+    }
+
+    private List<TableEntry> createEntries() {
+        List<TableEntry> entries = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            //Leave out a few rows and change some conditions each time, so refreshes have work to do
+            if (random.nextInt(100) == 0) {
+                continue;
+            }
+            TableEntry entry = new TableEntry(1000 * (i + 1));
+            entry.setCondition(randomCondition());
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    private String randomCondition() {
+        SelectionRules<String> rules = controller.getRules();
+        long all = (1L << rules.getOptions().size()) - 1;
+        return rules.valueOf(rules.correct(random.nextLong() & all));
+    }
+
+    /**
+     * One random operation.
+     */
+    private void step() {
+        operations++;
+        TableView<TableEntry> tableView = controller.getTableView();
+        TableColumn<TableEntry, String> column = controller.getConditionColumn();
+        switch (random.nextInt(12)) {
+            case 0:
+            case 1:
+            case 2:
+                tableView.scrollTo(random.nextInt(tableView.getItems().size()));
+                break;
+            case 3:
+            case 4: {
+                int row = random.nextInt(tableView.getItems().size());
+                tableView.scrollTo(row);
+                tableView.edit(row, column);
+                break;
+            }
+            case 5: {
+                //Open the popup; its ON_SHOWN handler runs
+                CheckComboBox<String> editor = editor(editingCell());
+                if (editor != null && showing == null) {
+                    editor.show();
+                    showing = editor;
+                }
+                break;
+            }
+            case 6:
+                //Toggle a check in the open popup, the way a click would
+                if (showing != null && !showing.getItems().isEmpty()) {
+                    int index = random.nextInt(showing.getItems().size());
+                    if (showing.getCheckModel().isChecked(index)) {
+                        showing.getCheckModel().clearCheck(index);
+                    } else {
+                        showing.getCheckModel().check(index);
+                    }
+                }
+                break;
+            case 7:
+                //Close the popup; its ON_HIDDEN handler commits
+                hidePopup();
+                break;
+            case 8: {
+                TableCell<TableEntry, String> cell = editingCell();
+                if (cell != null) {
+                    if (random.nextBoolean()) {
+                        cell.commitEdit(randomCondition());
+                    } else if (editor(cell) != null) {
+                        //Escape cancels, through the editor's key handler
+                        Event.fireEvent(editor(cell), new KeyEvent(KeyEvent.KEY_PRESSED, "", "", KeyCode.ESCAPE,
+                                false, false, false, false));
+                    }
+                }
+                break;
+            }
+            case 9:
+                hidePopup();
+                tableView.edit(-1, null);
+                break;
+            case 10:
+                if (extraOptions > 0 && random.nextBoolean()) {
+                    controller.getOptions().remove(controller.getOptions().size() - 1);
+                    extraOptions--;
+                } else {
+                    controller.getOptions().add("Extra " + operations);
+                    extraOptions++;
+                }
+                break;
+            default:
+                controller.refresh(createEntries());
+                break;
+        }
+    }
+
+    private void track(Object object) {
+        if (trackedSet.add(object)) {
+            tracked.add(new WeakReference<>(object));
+        }
+    }
+
+    private void hidePopup() {
+        if (showing != null) {
+            showing.hide();
+            showing = null;
+        }
+    }
+
+    /**
+     * Finds the cell being edited, if any.
+     */
+    @SuppressWarnings("unchecked")
+    private TableCell<TableEntry, String> editingCell() {
+        for (Iterator<WeakReference<Object>> i = tracked.iterator(); i.hasNext(); ) {
+            Object o = i.next().get();
+            if (o == null) {
+                i.remove();
+            } else if (o instanceof TableCell && ((TableCell<?, ?>) o).isEditing()) {
+                return (TableCell<TableEntry, String>) o;
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CheckComboBox<String> editor(TableCell<TableEntry, String> cell) {
+        return cell != null && cell.getGraphic() instanceof CheckComboBox
+                ? (CheckComboBox<String>) cell.getGraphic() : null;
+    }
+
+    /**
+     * Throws the table away, loads a new one, and checks a little later that nothing of the
+     * old one is still around.
+     */
+    private void recreate() {
+        hidePopup();
+        controller.getTableView().edit(-1, null);
+        List<WeakReference<Object>> retired = tracked;
+        tracked = new ArrayList<>();
+        trackedSet = Collections.newSetFromMap(new WeakHashMap<>());
+        try {
+            stage.getScene().setRoot(load());
+        } catch (IOException e) {
+            fail("Couldn't load the layout again: " + e);
+        }
+
+        //Give the old table a few pulses to let go of its skin, popups and animations
+        PauseTransition settle = new PauseTransition(Duration.seconds(2));
+        settle.setOnFinished(event -> check(retired));
+        settle.play();
+    }
+
+    private void check(List<WeakReference<Object>> retired) {
+        int alive = 0;
+        for (int attempt = 0; attempt < 10; attempt++) {
+            System.gc();
+            alive = 0;
+            for (WeakReference<Object> reference : retired) {
+                if (reference.get() != null) {
+                    alive++;
+                }
+            }
+            if (alive == 0) {
+                break;
+            }
+        }
+        if (alive > 0) {
+            fail(alive + " of " + retired.size() + " cells and editors outlived their table.");
+        }
+
+        Runtime runtime = Runtime.getRuntime();
+        long used = runtime.totalMemory() - runtime.freeMemory();
+        if (baselineHeap < 0) {
+            baselineHeap = used;
+        } else if (used > baselineHeap + HEAP_SLACK) {
+            fail("Heap grew from " + baselineHeap / 1024 + "k to " + used / 1024 + "k after " + tables + " tables.");
+        }
+        System.out.println("Table " + tables + ": " + retired.size() + " cells and editors collected, "
+                + used / 1024 + "k used, " + operations + " operations.");
+    }
+
+    private void fail(String message) {
+        System.err.println("FAILED: " + message);
+        System.exit(1);
+    }
+
+
+    public static void main(String[] args) {
+        launch(args);
+    }
+}
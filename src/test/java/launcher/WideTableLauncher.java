@@ -0,0 +1,260 @@
+package launcher;
+
+import controller.ConditionCatalog;
+import customtablecell.CheckComboBoxTableCell;
+import customtablecell.WideTableMode;
+import javafx.animation.AnimationTimer;
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.Scene;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.layout.StackPane;
+import javafx.stage.Stage;
+import model.TableEntry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Measures tables of 50, 150 and 500 condition columns while they scroll sideways or down,
+ * once as a plain table and once in {@link WideTableMode}.
+ * <p>
+ * Both tables of a size have the same fixed cell size, so the row skin leaves the cells of
+ * columns out of view out of the scene graph in both, and both create the same cells; what
+ * the mode changes is how many of the {@code updateItem} calls really update a cell.
+ * <p>
+ * Scrolling sideways gives no cell a new row, so there is nothing to skip; the mode only
+ * adds the catching up of cells as their columns come into view. Scrolling down gives the
+ * cells of every column new rows, and that is where the mode skips the columns out of view.
+ * <p>
+ * Every frame scrolls a little further, then runs the CSS and layout of the scene right
+ * away and times it; the pulse that follows has nothing left to do for them. For every
+ * table it prints how many cells were created, how many are in the scene graph, and per
+ * step the {@code updateItem} calls, how many of them were skipped, the updates cells really
+ * did (calls not skipped, plus skipped ones caught up), and the time spent in CSS and layout.
+ * To see whole pulses, rendering included, run it with {@code -Djavafx.pulseLogger=true} as
+ * well.
+ * <p>
+ * Options (all optional):
+ * <pre>
+ * --rows=2000       rows in each table
+ * --steps=200       measured steps per table, after 50 steps of warm-up
+ * --scroll=sideways sideways, or down
+ * </pre>
+ */
+public class WideTableLauncher extends Application {
+
+    private static final int[] COLUMN_COUNTS = {50, 150, 500};
+
+    private static final int WARMUP_STEPS = 50;
+
+    private static final double COLUMN_WIDTH = 100;
+
+    private static final double ROW_HEIGHT = 24;
+
+    /**
+     * How far every step scrolls, in pixels.
+     */
+    private static final double SCROLL_STEP = 150;
+
+    /**
+     * How far every step scrolls down, in rows.
+     */
+    private static final int ROWS_PER_STEP = 5;
+
+    private Stage stage;
+
+    private int rowCount;
+
+    private int steps;
+
+    private boolean down;
+
+    private final List<Run> runs = new ArrayList<>();
+
+    private Run run;
+
+    @Override
+    public void start(Stage primaryStage) {
+        Map<String, String> named = getParameters().getNamed();
+        rowCount = Integer.parseInt(named.getOrDefault("rows", "2000"));
+        steps = Integer.parseInt(named.getOrDefault("steps", "200"));
+        String scroll = named.getOrDefault("scroll", "sideways");
+        if (!scroll.equals("sideways") && !scroll.equals("down")) {
+            throw new IllegalArgumentException("--scroll is sideways or down, not " + scroll + ".");
+        }
+        down = scroll.equals("down");
+        for (int columns : COLUMN_COUNTS) {
+            runs.add(new Run(columns, false));
+            runs.add(new Run(columns, true));
+        }
+
+        stage = primaryStage;
+        stage.setTitle("Measuring wide tables");
+        stage.setScene(new Scene(new StackPane(), 1200, 800));
+        stage.show();
+
+        new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                if (!frame()) {
+                    stop();
+                    Platform.exit();
+                }
+            }
+        }.start();
+    }
+
+    /**
+     * Does the next step of the current table, or starts the next table. Returns false
+     * when all of them are done.
+     */
+    private boolean frame() {
+        if (run == null) {
+            if (runs.isEmpty()) {
+                return false;
+            }
+            run = runs.remove(0);
+            stage.getScene().setRoot(new StackPane(run.createTable()));
+        } else if (!run.step()) {
+            run.report();
+            run = null;
+        }
+        return true;
+    }
+
+    private List<TableEntry> createEntries() {
+        Random random = new Random(33);
+        long all = (1L << ConditionCatalog.OPTIONS.size()) - 1;
+        List<TableEntry> entries = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            TableEntry entry = new TableEntry(i + 1);
+            entry.setCondition(ConditionCatalog.RULES.valueOf(ConditionCatalog.RULES.correct(random.nextLong() & all)));
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    /**
+     * One table, and what was measured on it.
+     */
+    private class Run {
+
+        private final int columns;
+
+        private final boolean wide;
+
+        private TableView<TableEntry> tableView;
+
+        private int step;
+
+        private long cellsCreated;
+
+        private long updates;
+
+        private long skipped;
+
+        private long caughtUp;
+
+        private long layoutNanos;
+
+        private long maxLayoutNanos;
+
+        Run(int columns, boolean wide) {
+            this.columns = columns;
+            this.wide = wide;
+        }
+
+        TableView<TableEntry> createTable() {
+            ObservableList<String> options = FXCollections.observableArrayList(ConditionCatalog.OPTIONS);
+            tableView = new TableView<>(FXCollections.observableArrayList(createEntries()));
+            tableView.setEditable(true);
+            tableView.setFixedCellSize(ROW_HEIGHT);
+            for (int i = 0; i < columns; i++) {
+                TableColumn<TableEntry, String> column = new TableColumn<>("Condition " + i);
+                column.setPrefWidth(COLUMN_WIDTH);
+                column.setCellValueFactory(features -> features.getValue().conditionProperty());
+                //Count the cells, and how often they are given an item
+                column.setCellFactory(c -> {
+                    cellsCreated++;
+                    return new CheckComboBoxTableCell<TableEntry, String>(ConditionCatalog.CONVERTER, options,
+                            ConditionCatalog.RULES) {
+                        @Override
+                        public void updateItem(String item, boolean empty) {
+                            updates++;
+                            super.updateItem(item, empty);
+                        }
+                    };
+                });
+                tableView.getColumns().add(column);
+            }
+            if (wide) {
+                WideTableMode.install(tableView, ROW_HEIGHT);
+            }
+            return tableView;
+        }
+
+        /**
+         * Scrolls a step further and lays the table out. Returns false when done.
+         */
+        boolean step() {
+            if (step == WARMUP_STEPS + steps) {
+                return false;
+            }
+            ScrollBar horizontalBar = WideTableMode.findHorizontalBar(tableView);
+            if (horizontalBar == null) {
+                //Not laid out yet
+                return true;
+            }
+            WideTableMode mode = WideTableMode.of(tableView);
+            if (step == WARMUP_STEPS) {
+                updates = 0;
+                if (mode != null) {
+                    mode.resetUpdateCounts();
+                }
+                layoutNanos = 0;
+                maxLayoutNanos = 0;
+            }
+
+            if (down) {
+                tableView.scrollTo(step * ROWS_PER_STEP % rowCount);
+            } else {
+                double value = horizontalBar.getValue() + SCROLL_STEP;
+                horizontalBar.setValue(value > horizontalBar.getMax() ? horizontalBar.getMin() : value);
+            }
+            long start = System.nanoTime();
+            tableView.getScene().getRoot().applyCss();
+            tableView.getScene().getRoot().layout();
+            long elapsed = System.nanoTime() - start;
+            if (mode != null) {
+                skipped = mode.getSkippedUpdateCount();
+                caughtUp = mode.getCaughtUpUpdateCount();
+            }
+
+            layoutNanos += elapsed;
+            maxLayoutNanos = Math.max(maxLayoutNanos, elapsed);
+            step++;
+            return true;
+        }
+
+        void report() {
+            System.out.printf("%3d columns, %-10s: %6d cells created, %5d in the scene graph; per step"
+                            + " %7.1f updateItem calls, %7.1f skipped, %7.1f real updates,"
+                            + " %6.2f ms of CSS and layout (max %6.2f)%n",
+                    columns, wide ? "wide mode" : "plain", cellsCreated, tableView.lookupAll(".table-cell").size(),
+                    (double) updates / steps, (double) skipped / steps, (double) (updates - skipped + caughtUp) / steps,
+                    layoutNanos / 1e6 / steps, maxLayoutNanos / 1e6);
+        }
+    }
+
+
+    public static void main(String[] args) {
+        launch(args);
+    }
+}
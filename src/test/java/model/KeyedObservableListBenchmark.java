@@ -0,0 +1,125 @@
+package model;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A refresh of many rows where few of them changed: {@link KeyedObservableList#reconcile}
+ * against {@code setAll}, which is what refreshes did before.
+ * <p>
+ * Every call switches the list between two snapshots of the rows that differ in
+ * {@code changed} of the rows: a quarter of those have a new condition, a quarter are
+ * removed, a quarter are new and a quarter are moved.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class KeyedObservableListBenchmark {
+
+    @Param({"1000000"})
+    int rows;
+
+    @Param({"0.001"})
+    double changed;
+
+    private List<TableEntry> before;
+
+    private List<TableEntry> after;
+
+    private KeyedObservableList<Integer, TableEntry> keyed;
+
+    private ObservableList<TableEntry> plain;
+
+    private boolean flip;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(29);
+        before = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            before.add(entry(2 * i, "Open"));
+        }
+        after = copy(before);
+        int changes = (int) (rows * changed);
+        for (int i = 0; i < changes; i++) {
+            switch (i % 4) {
+                case 0:
+                    after.get(random.nextInt(after.size())).setCondition("Open, Cut");
+                    break;
+                case 1:
+                    after.remove(random.nextInt(after.size()));
+                    break;
+                case 2:
+                    //Odd numbers are never in the first snapshot
+                    after.add(random.nextInt(after.size()), entry(2 * random.nextInt(rows) + 1, "Ok"));
+                    break;
+                default:
+                    after.add(random.nextInt(after.size()), after.remove(random.nextInt(after.size())));
+                    break;
+            }
+        }
+        //The rare new row that came up twice
+        Set<Integer> seen = new HashSet<>();
+        after.removeIf(entry -> !seen.add(entry.getPoNumber()));
+
+        keyed = new KeyedObservableList<>(TableEntry::getPoNumber, TableEntry::updateFrom);
+        keyed.reconcile(copy(before));
+        plain = FXCollections.observableArrayList(copy(before));
+    }
+
+    @Benchmark
+    public KeyedObservableList<Integer, TableEntry> reconcile() {
+        flip = !flip;
+        keyed.reconcile(flip ? after : before);
+        return keyed;
+    }
+
+    @Benchmark
+    public ObservableList<TableEntry> setAll() {
+        flip = !flip;
+        plain.setAll(flip ? after : before);
+        return plain;
+    }
+
+    private static TableEntry entry(int poNumber, String condition) {
+        TableEntry entry = new TableEntry(poNumber);
+        entry.setCondition(condition);
+        return entry;
+    }
+
+    private static List<TableEntry> copy(List<TableEntry> entries) {
+        List<TableEntry> copy = new ArrayList<>(entries.size());
+        for (TableEntry entry : entries) {
+            copy.add(entry(entry.getPoNumber(), entry.getCondition()));
+        }
+        return copy;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(KeyedObservableListBenchmark.class.getSimpleName()).build()).run();
+    }
+}
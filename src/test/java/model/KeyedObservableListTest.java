@@ -0,0 +1,207 @@
+package model;
+
+import javafx.collections.ListChangeListener;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class KeyedObservableListTest {
+
+    private KeyedObservableList<Integer, TableEntry> list;
+
+    /**
+     * What the list looked like before the last reconcile, with every change it fired applied.
+     */
+    private List<TableEntry> replayed;
+
+    private int changes;
+
+    @Before
+    public void setUp() {
+        list = new KeyedObservableList<>(TableEntry::getPoNumber, TableEntry::updateFrom);
+        list.addListener((ListChangeListener<TableEntry>) change -> {
+            changes++;
+            replay(change, replayed);
+        });
+    }
+
+    @Test
+    public void noChangeFiresNothing() {
+        reconcile(entries(1, 2, 3, 4));
+        List<TableEntry> rows = new ArrayList<>(list);
+
+        changes = 0;
+        reconcile(entries(1, 2, 3, 4));
+        assertEquals(0, changes);
+        for (int i = 0; i < rows.size(); i++) {
+            assertSame(rows.get(i), list.get(i));
+        }
+    }
+
+    @Test
+    public void valuesAreUpdatedInPlaceWithoutAChange() {
+        reconcile(entries(1, 2, 3));
+        TableEntry second = list.get(1);
+
+        changes = 0;
+        List<TableEntry> fresh = entries(1, 2, 3);
+        fresh.get(1).setCondition("Cut");
+        reconcile(fresh);
+        assertEquals(0, changes);
+        assertSame(second, list.get(1));
+        assertEquals("Cut", second.getCondition());
+    }
+
+    @Test
+    public void reorderOnlyMovesTheRowsOutOfOrder() {
+        reconcile(entries(1, 2, 3, 4, 5));
+        List<TableEntry> rows = new ArrayList<>(list);
+
+        changes = 0;
+        List<Integer> removed = new ArrayList<>();
+        ListChangeListener<TableEntry> moves = change -> {
+            while (change.next()) {
+                for (TableEntry entry : change.getRemoved()) {
+                    removed.add(entry.getPoNumber());
+                }
+            }
+        };
+        list.addListener(moves);
+        reconcile(entries(2, 3, 4, 5, 1));
+        list.removeListener(moves);
+
+        assertEquals(1, changes);
+        assertEquals(Collections.singletonList(1), removed);
+        //The rows themselves are kept
+        assertSame(rows.get(0), list.get(4));
+        assertSame(rows.get(1), list.get(0));
+    }
+
+    @Test
+    public void addsAndRemovesMixedWithMoves() {
+        reconcile(entries(1, 2, 3, 4, 5, 6, 7, 8));
+        reconcile(entries(9, 3, 1, 2, 10, 8, 6, 11));
+        reconcile(entries(11, 6));
+        reconcile(entries());
+        reconcile(entries(5, 4, 3, 2, 1));
+    }
+
+    @Test
+    public void randomReconcilesReplayToTheFreshRows() {
+        Random random = new Random(29);
+        for (int round = 0; round < 500; round++) {
+            List<Integer> keys = new ArrayList<>();
+            for (int key = 0; key < 40; key++) {
+                if (random.nextInt(3) > 0) {
+                    keys.add(key);
+                }
+            }
+            Collections.shuffle(keys.subList(0, random.nextInt(keys.size() + 1)), random);
+            //Mostly small changes, now and then a big shuffle
+            for (int i = random.nextInt(4); i > 0 && keys.size() > 1; i--) {
+                keys.add(random.nextInt(keys.size()), keys.remove(random.nextInt(keys.size())));
+            }
+            int[] array = new int[keys.size()];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = keys.get(i);
+            }
+            reconcile(entries(array));
+        }
+    }
+
+    @Test
+    public void duplicateKeysThrowAndLeaveTheListAlone() {
+        reconcile(entries(1, 2, 3));
+        List<TableEntry> rows = new ArrayList<>(list);
+
+        changes = 0;
+        try {
+            list.reconcile(entries(4, 2, 4));
+            fail("Duplicate keys should be rejected");
+        } catch (IllegalArgumentException expected) {
+            //As it should
+        }
+        assertEquals(0, changes);
+        assertEquals(rows, list);
+        assertEquals(null, list.getByKey(4));
+    }
+
+    @Test
+    public void rowsCanBeFoundByKey() {
+        reconcile(entries(1, 2, 3));
+        TableEntry two = list.getByKey(2);
+        assertSame(list.get(1), two);
+
+        reconcile(entries(3, 4));
+        assertEquals(null, list.getByKey(2));
+        assertSame(list.get(1), list.getByKey(4));
+
+        list.add(entries(5).get(0));
+        assertEquals(5, list.getByKey(5).getPoNumber());
+        list.remove(0);
+        assertEquals(null, list.getByKey(3));
+    }
+
+    /**
+     * Reconciles, and checks that the change the list fired turns the old rows into the new ones.
+     */
+    private void reconcile(List<TableEntry> fresh) {
+        replayed = new ArrayList<>(list);
+        list.reconcile(fresh);
+        assertEquals(keys(fresh), keys(list));
+        assertEquals(keys(fresh), keys(replayed));
+        for (int i = 0; i < list.size(); i++) {
+            assertSame(list.get(i), replayed.get(i));
+            assertSame(list.get(i), list.getByKey(list.get(i).getPoNumber()));
+        }
+    }
+
+    private static void replay(ListChangeListener.Change<? extends TableEntry> change, List<TableEntry> copy) {
+        while (change.next()) {
+            if (change.wasPermutated()) {
+                List<TableEntry> permuted = new ArrayList<>(copy);
+                for (int i = change.getFrom(); i < change.getTo(); i++) {
+                    permuted.set(change.getPermutation(i), copy.get(i));
+                }
+                copy.clear();
+                copy.addAll(permuted);
+            } else {
+                if (change.wasRemoved()) {
+                    List<TableEntry> removed = copy.subList(change.getFrom(), change.getFrom() + change.getRemovedSize());
+                    assertEquals(keys(change.getRemoved()), keys(removed));
+                    removed.clear();
+                }
+                if (change.wasAdded()) {
+                    copy.addAll(change.getFrom(), change.getAddedSubList());
+                }
+            }
+        }
+    }
+
+    private static List<TableEntry> entries(int... keys) {
+        List<TableEntry> entries = new ArrayList<>(keys.length);
+        for (int key : keys) {
+            TableEntry entry = new TableEntry(key);
+            entry.setCondition("Open");
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    private static List<Integer> keys(List<? extends TableEntry> entries) {
+        Integer[] keys = new Integer[entries.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = entries.get(i).getPoNumber();
+        }
+        return Arrays.asList(keys);
+    }
+}
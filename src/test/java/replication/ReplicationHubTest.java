@@ -0,0 +1,218 @@
+package replication;
+
+import controller.ConditionCatalog;
+import javafx.application.Platform;
+import model.TableEntry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import support.JavaFx;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs a hub on localhost with a few clients, each with its own copy of the rows.
+ */
+public class ReplicationHubTest {
+
+    private static final String HOST = InetAddress.getLoopbackAddress().getHostAddress();
+
+    private ReplicationHub hub;
+
+    private final List<Client> clients = new ArrayList<>();
+
+    @BeforeClass
+    public static void startJavaFx() {
+        JavaFx.start();
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        hub = new ReplicationHub(0).start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (Client client : clients) {
+            client.replication.close();
+        }
+        hub.close();
+    }
+
+    @Test
+    public void editsReachTheOtherClient() throws Exception {
+        Client a = connect();
+        Client b = connect();
+
+        JavaFx.run(() -> a.edit(1, "Open"));
+        JavaFx.waitFor("B to get A's edit", () -> "Open".equals(b.condition(1)));
+
+        //B's edit is a newer version of the same row
+        JavaFx.run(() -> b.edit(1, "Ok"));
+        JavaFx.waitFor("A to get B's edit", () -> "Ok".equals(a.condition(1)));
+        assertEquals(2, hub.getLatest(1).getVersion());
+    }
+
+    @Test
+    public void concurrentEditsEndUpTheSameEverywhere() throws Exception {
+        Client a = connect();
+        Client b = connect();
+
+        //Both make version 1 of the row; the same one must win on both sides
+        JavaFx.run(() -> {
+            a.edit(2, "Open");
+            b.edit(2, "Ok");
+        });
+        JavaFx.waitFor("A and B to agree", () -> {
+            ConditionDelta winner = hub.getLatest(2);
+            String expected = winner == null ? null : ConditionCatalog.RULES.valueOf(winner.getMask());
+            return expected != null && expected.equals(a.condition(2)) && expected.equals(b.condition(2));
+        });
+    }
+
+    @Test
+    public void staleVersionsAreDropped() throws Exception {
+        Client a = connect();
+        Client b = connect();
+        JavaFx.run(() -> a.edit(1, "Open"));
+        JavaFx.waitFor("B to get version 1", () -> "Open".equals(b.condition(1)));
+        JavaFx.run(() -> a.edit(1, "Open, Cut"));
+        JavaFx.waitFor("B to get version 2", () -> "Open, Cut".equals(b.condition(1)));
+
+        //An old version from elsewhere, then a marker on the same connection to know it went through
+        send(new ConditionDelta(1, mask("Ok"), 1, Integer.MAX_VALUE),
+                new ConditionDelta(5, mask("Ok"), 1, 0));
+        JavaFx.waitFor("the marker", () -> "Ok".equals(a.condition(5)) && "Ok".equals(b.condition(5)));
+        JavaFx.run(() -> {
+            assertEquals("Open, Cut", a.condition(1));
+            assertEquals("Open, Cut", b.condition(1));
+        });
+        assertEquals(2, hub.getLatest(1).getVersion());
+    }
+
+    @Test
+    public void deltasForTheSameRowAreCoalesced() throws Exception {
+        Client b = connect();
+        int versions = 100;
+        ConditionDelta[] deltas = new ConditionDelta[versions];
+        String[] values = {"Open", "Open, Cut", "Ok"};
+        for (int v = 1; v <= versions; v++) {
+            deltas[v - 1] = new ConditionDelta(4, mask(values[v % values.length]), v, 0);
+        }
+        String last = values[versions % values.length];
+
+        //Keep the application thread busy while they all arrive
+        CountDownLatch release = new CountDownLatch(1);
+        Platform.runLater(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        send(deltas);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (hub.getLatest(4) == null || hub.getLatest(4).getVersion() < versions) {
+            assertTrue("The hub didn't get every version", System.nanoTime() < deadline);
+            Thread.sleep(10);
+        }
+        //Time for the hub to pass them on
+        Thread.sleep(200);
+        release.countDown();
+
+        JavaFx.waitFor("the last version", () -> last.equals(b.condition(4)));
+        int applied = JavaFx.call(() -> b.applied.getOrDefault(4, 0));
+        assertTrue("Applied " + applied + " times", applied <= 2);
+    }
+
+    @Test
+    public void aLateClientCatchesUp() throws Exception {
+        Client a = connect();
+        JavaFx.run(() -> {
+            a.edit(1, "Open");
+            a.edit(2, "Open, Cut");
+            a.edit(3, "Ok");
+            a.edit(3, "Open");
+        });
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (hub.getLatest(3) == null || hub.getLatest(3).getVersion() < 2 || hub.getLatest(2) == null
+                || hub.getLatest(1) == null) {
+            assertTrue("The hub didn't get A's edits", System.nanoTime() < deadline);
+            Thread.sleep(10);
+        }
+
+        Client late = connect();
+        JavaFx.waitFor("the late client to catch up", () -> "Open".equals(late.condition(1))
+                && "Open, Cut".equals(late.condition(2)) && "Open".equals(late.condition(3)));
+        JavaFx.run(() -> assertEquals(null, late.condition(4)));
+    }
+
+    private Client connect() throws IOException {
+        Client client = new Client();
+        clients.add(client);
+        return client;
+    }
+
+    private void send(ConditionDelta... deltas) throws IOException {
+        try (Socket socket = new Socket(HOST, hub.getPort());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            for (ConditionDelta delta : deltas) {
+                delta.write(out);
+            }
+            out.flush();
+        }
+    }
+
+    private static long mask(String condition) {
+        return ConditionCatalog.RULES.maskOf(condition, ConditionCatalog.CONVERTER);
+    }
+
+    /**
+     * A client with its own rows, 1 to 5, that counts how often each row is written to.
+     */
+    private class Client {
+
+        final Map<Integer, TableEntry> rows = new HashMap<>();
+
+        final Map<Integer, Integer> applied = new HashMap<>();
+
+        final ReplicationClient<TableEntry, String> replication;
+
+        Client() throws IOException {
+            for (int id = 1; id <= 5; id++) {
+                rows.put(id, new TableEntry(id));
+            }
+            replication = new ReplicationClient<>(HOST, hub.getPort(), ConditionCatalog.RULES,
+                    ConditionCatalog.CONVERTER, TableEntry::getPoNumber, rows::get, (row, value) -> {
+                        applied.merge(row.getPoNumber(), 1, Integer::sum);
+                        row.setCondition(value);
+                    });
+        }
+
+        /**
+         * What committing an edit in the table does: write it, then publish it.
+         */
+        void edit(int id, String condition) {
+            rows.get(id).setCondition(condition);
+            replication.publish(rows.get(id), condition);
+        }
+
+        String condition(int id) {
+            return rows.get(id).getCondition();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package support;
+
+import javafx.application.Platform;
+import javafx.embed.swing.JFXPanel;
+import javafx.scene.text.Text;
+import org.junit.Assume;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts the JavaFX toolkit for tests, and runs code on the JavaFX Application Thread.
+ */
+public final class JavaFx {
+
+    private static boolean started;
+
+    private static Boolean textLayout;
+
+    private JavaFx() {
+    }
+
+    /**
+     * Starts the toolkit, if it isn't running yet.
+     */
+    public static synchronized void start() {
+        if (!started) {
+            //Creating a JFXPanel is the way to start the toolkit without an Application
+            new JFXPanel();
+            Platform.setImplicitExit(false);
+            started = true;
+        }
+    }
+
+    /**
+     * Runs the given code on the JavaFX Application Thread and waits for it.
+     */
+    public static <T> T call(Callable<T> code) throws Exception {
+        start();
+        if (Platform.isFxApplicationThread()) {
+            return code.call();
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                result.complete(code.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        try {
+            return result.get(30, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Runs the given code on the JavaFX Application Thread and waits for it.
+     */
+    public static void run(Runnable code) throws Exception {
+        call(() -> {
+            code.run();
+            return null;
+        });
+    }
+
+    /**
+     * Checks the given condition on the JavaFX Application Thread until it holds, and fails
+     * if it doesn't within ten seconds.
+     */
+    public static void waitFor(String what, Callable<Boolean> condition) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!call(condition)) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Timed out waiting for " + what);
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Waits until everything already handed to {@link Platform#runLater} has run.
+     */
+    public static void flush() throws Exception {
+        run(() -> {
+        });
+    }
+
+    /**
+     * Skips the calling test where JavaFX can't lay out text, such as a headless Linux
+     * without Pango. Tests that measure text or show a scene need it.
+     */
+    public static synchronized void assumeTextLayout() throws Exception {
+        if (textLayout == null) {
+            textLayout = call(() -> {
+                try {
+                    new Text("Open, Cut").getLayoutBounds();
+                    return true;
+                } catch (LinkageError e) {
+                    return false;
+                }
+            });
+        }
+        Assume.assumeTrue("JavaFX can't lay out text here; is Pango installed?", textLayout);
+    }
+}